@@ -16,17 +16,17 @@
 
 package com.edmunds.tools.databricks.maven;
 
-import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
 import com.edmunds.rest.databricks.DatabricksRestException;
 import com.edmunds.rest.databricks.service.JobService;
-import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
 import com.edmunds.tools.databricks.maven.util.EnvironmentDTOSupplier;
+import com.edmunds.tools.databricks.maven.util.JobIndex;
 import com.edmunds.tools.databricks.maven.util.SettingsInitializer;
 import com.edmunds.tools.databricks.maven.util.SettingsUtils;
 import java.io.File;
 import java.io.IOException;
-import org.apache.commons.lang3.StringUtils;
+import java.util.function.Predicate;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 
@@ -43,6 +43,8 @@ public abstract class BaseDatabricksJobMojo extends BaseDatabricksMojo {
     boolean failOnDuplicateJobName = true;
     /**
      * The databricks job json file that contains all of the information for how to create one or more databricks jobs.
+     * May also be a directory of json files, or a glob in the file name (e.g. jobs/*.json), to keep jobs in
+     * separate files. Each file is rendered and cached on its own.
      */
     @Parameter(defaultValue = "${project.build.resources[0].directory}/databricks-plugin/databricks-job-settings.json",
         property = "dbJobFile")
@@ -62,26 +64,33 @@ public abstract class BaseDatabricksJobMojo extends BaseDatabricksMojo {
         if (settingsUtils == null) {
             settingsUtils = new SettingsUtils<>(
                 JobSettingsDTO[].class, "/default-job.json", dbJobFile,
-                getEnvironmentDTOSupplier(), getSettingsInitializer());
+                getEnvironmentDTOSupplier(), getSettingsInitializer(), getSettingsCacheDirectory());
         }
         return settingsUtils;
     }
 
+    File getDbJobFile() {
+        return dbJobFile;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setDbJobFile(File dbJobFile) {
+        this.dbJobFile = dbJobFile;
+    }
+
     EnvironmentDTOSupplier getEnvironmentDTOSupplier() {
         if (environmentDTOSupplier == null) {
-            environmentDTOSupplier = () -> {
-                if (StringUtils.isBlank(databricksRepo)) {
-                    throw new MojoExecutionException("databricksRepo property is missing");
-                }
-                return new EnvironmentDTO(project, environment, databricksRepo, databricksRepoKey, prefixToStrip);
-            };
+            environmentDTOSupplier = () -> createEnvironmentDTO(environment);
         }
         return environmentDTOSupplier;
     }
 
     SettingsInitializer<JobSettingsDTO> getSettingsInitializer() {
         if (settingsInitializer == null) {
-            settingsInitializer = new BaseDatabricksJobMojoSettingsInitializer(validate, prefixToStrip);
+            settingsInitializer = new BaseDatabricksJobMojoSettingsInitializer(validate, prefixToStrip,
+                new DefaultsReport(getLog(), defaultsReport, "jobs"));
         }
         return settingsInitializer;
     }
@@ -90,15 +99,18 @@ public abstract class BaseDatabricksJobMojo extends BaseDatabricksMojo {
         return getDatabricksServiceFactory().getJobService();
     }
 
-    Long getJobId(String jobName) throws MojoExecutionException {
+    /**
+     * Takes a snapshot of the jobs in the workspace, so that many jobs can be looked up with a single listing.
+     *
+     * @param nameFilter only jobs whose name passes this filter are indexed, the name may be null
+     * @return the job index
+     * @throws MojoExecutionException exception
+     */
+    JobIndex loadJobIndex(Predicate<String> nameFilter) throws MojoExecutionException {
         try {
-            JobDTO jobDTO = getJobService().getJobByName(jobName, failOnDuplicateJobName);
-            if (jobDTO == null) {
-                return null;
-            }
-            return jobDTO.getJobId();
-        } catch (DatabricksRestException | IOException | IllegalStateException e) {
-            throw new MojoExecutionException(e.getMessage(), e);
+            return JobIndex.load(openJobIterator(nameFilter));
+        } catch (DatabricksRestException | IOException e) {
+            throw new MojoExecutionException("Could not list jobs.", e);
         }
     }
 
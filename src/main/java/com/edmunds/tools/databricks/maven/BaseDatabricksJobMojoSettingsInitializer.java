@@ -1,17 +1,19 @@
 package com.edmunds.tools.databricks.maven;
 
-import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+import static com.edmunds.tools.databricks.maven.util.SettingsMerger.userEmpty;
 
 import com.edmunds.rest.databricks.DTO.jobs.JobEmailNotificationsDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
 import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
 import com.edmunds.tools.databricks.maven.util.SettingsInitializer;
+import com.edmunds.tools.databricks.maven.util.SettingsMerger;
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.Strategy;
 import com.edmunds.tools.databricks.maven.validation.ValidationUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
@@ -24,13 +26,36 @@ public class BaseDatabricksJobMojoSettingsInitializer implements SettingsInitial
 
     static final String TEAM_TAG = "team";
     private static final Log log = new SystemStreamLog();
+    private static final SettingsMerger MERGER = new SettingsMerger()
+        .mergeRule("email_notifications")
+        .rule("email_notifications.on_failure", Strategy.REPLACE_IF_EMPTY)
+        .mergeRule("new_cluster", userEmpty("existing_cluster_id"))
+        .rule("new_cluster.spark_version", Strategy.REPLACE_IF_EMPTY)
+        .rule("new_cluster.node_type_id", Strategy.REPLACE_IF_EMPTY)
+        .rule("new_cluster.num_workers", Strategy.REPLACE_IF_EMPTY,
+            (user, defaults) -> SettingsMerger.isMissing(user.path("new_cluster").get("autoscale")))
+        .rule("new_cluster.aws_attributes", Strategy.REPLACE_IF_MISSING)
+        .rule("timeout_seconds", Strategy.REPLACE_IF_MISSING)
+        // Can't have libraries if its a spark submit task
+        .rule("libraries", Strategy.REPLACE_IF_MISSING,
+            (user, defaults) -> SettingsMerger.isMissing(user.get("spark_submit_task")))
+        .rule("max_concurrent_runs", Strategy.REPLACE_IF_MISSING)
+        .rule("max_retries", Strategy.REPLACE_IF_MISSING)
+        .rule("min_retry_interval_millis", Strategy.REPLACE_IF_MISSING,
+            (user, defaults) -> user.path("max_retries").asInt() != 0);
 
     private final boolean validate;
     private final String prefixToStrip;
+    private final DefaultsReport defaultsReport;
 
     BaseDatabricksJobMojoSettingsInitializer(boolean validate, String prefixToStrip) {
+        this(validate, prefixToStrip, new DefaultsReport(log, null, "jobs"));
+    }
+
+    BaseDatabricksJobMojoSettingsInitializer(boolean validate, String prefixToStrip, DefaultsReport defaultsReport) {
         this.validate = validate;
         this.prefixToStrip = prefixToStrip;
+        this.defaultsReport = defaultsReport;
     }
 
     @Override
@@ -43,87 +68,14 @@ public class BaseDatabricksJobMojoSettingsInitializer implements SettingsInitial
             log.info(String.format("set JobName with %s", jobName));
         }
 
-        // email_notifications
-        if (settingsDTO.getEmailNotifications() == null) {
-            settingsDTO.setEmailNotifications(SerializationUtils.clone(defaultSettingsDTO.getEmailNotifications()));
-            log.info(String.format("%s|set email_notifications with %s", jobName,
-                OBJECT_MAPPER.writeValueAsString(defaultSettingsDTO.getEmailNotifications())));
-
-        } else if (settingsDTO.getEmailNotifications().getOnFailure() == null
-            || settingsDTO.getEmailNotifications().getOnFailure().length == 0
-            || StringUtils.isEmpty(settingsDTO.getEmailNotifications().getOnFailure()[0])) {
-            settingsDTO.getEmailNotifications().setOnFailure(defaultSettingsDTO.getEmailNotifications().getOnFailure());
-            log.info(String.format("%s|set email_notifications.on_failure with %s", jobName,
-                OBJECT_MAPPER.writeValueAsString(defaultSettingsDTO.getEmailNotifications().getOnFailure())));
+        // A blank first address, e.g. from an unset template variable, counts as no address
+        JobEmailNotificationsDTO emailNotifications = settingsDTO.getEmailNotifications();
+        if (emailNotifications != null && ArrayUtils.isNotEmpty(emailNotifications.getOnFailure())
+            && StringUtils.isEmpty(emailNotifications.getOnFailure()[0])) {
+            emailNotifications.setOnFailure(null);
         }
 
-        // ClusterInfo
-        if (StringUtils.isEmpty(settingsDTO.getExistingClusterId())) {
-            if (settingsDTO.getNewCluster() == null) {
-                settingsDTO.setNewCluster(SerializationUtils.clone(defaultSettingsDTO.getNewCluster()));
-                log.info(String.format("%s|set new_cluster with %s", jobName,
-                    OBJECT_MAPPER.writeValueAsString(defaultSettingsDTO.getNewCluster())));
-
-            } else {
-                if (StringUtils.isEmpty(settingsDTO.getNewCluster().getSparkVersion())) {
-                    settingsDTO.getNewCluster().setSparkVersion(defaultSettingsDTO.getNewCluster().getSparkVersion());
-                    log.info(String.format("%s|set new_cluster.spark_version with %s", jobName,
-                        defaultSettingsDTO.getNewCluster().getSparkVersion()));
-                }
-
-                if (StringUtils.isEmpty(settingsDTO.getNewCluster().getNodeTypeId())) {
-                    settingsDTO.getNewCluster().setNodeTypeId(defaultSettingsDTO.getNewCluster().getNodeTypeId());
-                    log.info(String.format("%s|set new_cluster.node_type_id with %s", jobName,
-                        defaultSettingsDTO.getNewCluster().getNodeTypeId()));
-                }
-
-                if (settingsDTO.getNewCluster().getAutoScale() == null
-                    && settingsDTO.getNewCluster().getNumWorkers() < 1) {
-                    settingsDTO.getNewCluster().setNumWorkers(defaultSettingsDTO.getNewCluster().getNumWorkers());
-                    log.info(String.format("%s|set new_cluster.num_workers with %s", jobName,
-                        defaultSettingsDTO.getNewCluster().getNumWorkers()));
-                }
-
-                //aws_attributes
-                if (settingsDTO.getNewCluster().getAwsAttributes() == null) {
-                    settingsDTO.getNewCluster().setAwsAttributes(
-                        SerializationUtils.clone(defaultSettingsDTO.getNewCluster().getAwsAttributes()));
-                    log.info(String.format("%s|set new_cluster.aws_attributes with %s", jobName,
-                        OBJECT_MAPPER.writeValueAsString(defaultSettingsDTO.getNewCluster().getAwsAttributes())));
-                }
-            }
-        }
-
-        if (settingsDTO.getTimeoutSeconds() == null) {
-            settingsDTO.setTimeoutSeconds(defaultSettingsDTO.getTimeoutSeconds());
-            log.info(String.format("%s|set timeout_seconds with %s", jobName,
-                defaultSettingsDTO.getTimeoutSeconds()));
-        }
-
-        // Can't have libraries if its a spark submit task
-        if ((settingsDTO.getLibraries() == null) && settingsDTO.getSparkSubmitTask() == null) {
-            settingsDTO.setLibraries(SerializationUtils.clone(defaultSettingsDTO.getLibraries()));
-            log.info(String.format("%s|set libraries with %s", jobName,
-                OBJECT_MAPPER.writeValueAsString(defaultSettingsDTO.getLibraries())));
-        }
-
-        if (settingsDTO.getMaxConcurrentRuns() == null) {
-            settingsDTO.setMaxConcurrentRuns(defaultSettingsDTO.getMaxConcurrentRuns());
-            log.info(String.format("%s|set max_concurrent_runs with %s", jobName,
-                defaultSettingsDTO.getMaxConcurrentRuns()));
-        }
-
-        if (settingsDTO.getMaxRetries() == null) {
-            settingsDTO.setMaxRetries(defaultSettingsDTO.getMaxRetries());
-            log.info(String.format("%s|set max_retries with %s", jobName,
-                defaultSettingsDTO.getMaxRetries()));
-        }
-
-        if (settingsDTO.getMaxRetries() != 0 && settingsDTO.getMinRetryIntervalMillis() == null) {
-            settingsDTO.setMinRetryIntervalMillis(defaultSettingsDTO.getMinRetryIntervalMillis());
-            log.info(String.format("%s|set min_retry_interval_millis with %s", jobName,
-                defaultSettingsDTO.getMinRetryIntervalMillis()));
-        }
+        defaultsReport.record(jobName, MERGER.apply(settingsDTO, defaultSettingsDTO));
 
         //set InstanceTags
         if (settingsDTO.getNewCluster() != null) {
@@ -142,6 +94,21 @@ public class BaseDatabricksJobMojoSettingsInitializer implements SettingsInitial
         }
     }
 
+    @Override
+    public String getSettingsName(JobSettingsDTO settingsDTO) {
+        return settingsDTO.getName();
+    }
+
+    @Override
+    public String getCacheKey() {
+        return getClass().getName() + ":" + validate + ":" + prefixToStrip;
+    }
+
+    @Override
+    public void complete() throws MojoExecutionException {
+        defaultsReport.write();
+    }
+
     @Override
     public void validate(JobSettingsDTO settingsDTO, EnvironmentDTO environmentDTO) throws MojoExecutionException {
         if (validate) {
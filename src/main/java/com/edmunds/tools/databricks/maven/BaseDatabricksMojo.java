@@ -20,8 +20,13 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import com.edmunds.rest.databricks.DatabricksServiceFactory;
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.JobIterator;
+import com.edmunds.tools.databricks.maven.util.JobPageSource;
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Predicate;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -39,6 +44,9 @@ public abstract class BaseDatabricksMojo extends AbstractMojo {
     private static final String DB_PASSWORD = "DB_PASSWORD";
     private static final String DB_URL = "DB_URL";
     private static final String DB_TOKEN = "DB_TOKEN";
+    private static final int SO_TIMEOUT_MILLIS = 1000 * 60 * 30;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000 * 30;
+    private static final int JOB_LIST_READ_TIMEOUT_MILLIS = 1000 * 60;
 
     @Parameter(defaultValue = "${project}", readonly = true)
     protected MavenProject project;
@@ -151,18 +159,54 @@ public abstract class BaseDatabricksMojo extends AbstractMojo {
     @Parameter(name = "singleJob", property = "singleJob")
     protected String singleJob;
 
+    /**
+     * If set, the defaults applied to every job and cluster are written to this json file.
+     * Otherwise only the applied paths are logged, with values at debug level.
+     */
+    @Parameter(name = "defaultsReport", property = "defaultsReport")
+    protected File defaultsReport;
+
+    /**
+     * Whether initialized job and cluster settings are cached, so goals later in the build, or in the next build,
+     * do not render them again while the settings file, defaults and environment are unchanged.
+     * Ignored when defaultsReport is set.
+     */
+    @Parameter(name = "settingsCache", property = "settingsCache", defaultValue = "true")
+    protected boolean settingsCache = true;
+
+    /**
+     * Where initialized settings are cached.
+     */
+    @Parameter(name = "settingsCacheDirectory", property = "settingsCacheDirectory",
+        defaultValue = "${project.build.directory}/databricks-plugin/settings-cache")
+    protected File settingsCacheDirectory;
+
+    /**
+     * The number of jobs read per jobs/list request. The jobs/list API accepts at most 100, lower it if an older
+     * workspace rejects the limit.
+     */
+    @Parameter(name = "jobListPageSize", property = "jobs.listPageSize", defaultValue = "100")
+    protected int jobListPageSize = JobIterator.DEFAULT_PAGE_SIZE;
+
     private DatabricksServiceFactory databricksServiceFactory;
+    // Set up along with the factory, with the same credentials. Without it, jobs are listed with the factory.
+    private JobPageSource jobPageSource;
 
-    protected DatabricksServiceFactory getDatabricksServiceFactory() {
+    protected synchronized DatabricksServiceFactory getDatabricksServiceFactory() {
 
         if (databricksServiceFactory == null) {
             loadPropertiesFromSystemEnvironment();
             if (token != null) {
-                return DatabricksServiceFactory
+                // Built once and shared, so that concurrent calls reuse the same connection pool
+                databricksServiceFactory = DatabricksServiceFactory
                         .Builder
                         .createTokenAuthentication(token, host)
-                        .withSoTimeout(1000 * 60 * 30)
+                        .withSoTimeout(SO_TIMEOUT_MILLIS)
                         .build();
+                if (jobPageSource == null) {
+                    jobPageSource = JobPageSource.rest("https://" + host, token, CONNECT_TIMEOUT_MILLIS,
+                        JOB_LIST_READ_TIMEOUT_MILLIS);
+                }
             } else {
                 throw new IllegalArgumentException("Must either specify user/password or token!");
             }
@@ -179,6 +223,32 @@ public abstract class BaseDatabricksMojo extends AbstractMojo {
         this.databricksServiceFactory = databricksServiceFactory;
     }
 
+    /**
+     * NOTE - only for unit testing.
+     *
+     * @param jobPageSource - where job listing pages are read from
+     */
+    void setJobPageSource(JobPageSource jobPageSource) {
+        this.jobPageSource = jobPageSource;
+    }
+
+    /**
+     * Streams the jobs of the workspace page by page. All job lookups should go through this,
+     * rather than materializing every job with listAllJobs.
+     *
+     * @param nameFilter only jobs whose name passes this filter are returned, the name may be null
+     * @return a job iterator, the caller closes it
+     */
+    protected JobIterator openJobIterator(Predicate<String> nameFilter) {
+        DatabricksServiceFactory serviceFactory = getDatabricksServiceFactory();
+        JobPageSource pageSource;
+        synchronized (this) {
+            pageSource = jobPageSource;
+        }
+        return new JobIterator(pageSource != null ? pageSource
+            : JobPageSource.fromJobService(serviceFactory.getJobService()), nameFilter, jobListPageSize);
+    }
+
     private void loadPropertiesFromSystemEnvironment() {
         String envUrl = System.getenv(DB_URL);
         if (isBlank(host) && isNotBlank(envUrl)) {
@@ -211,6 +281,30 @@ public abstract class BaseDatabricksMojo extends AbstractMojo {
         this.project = project;
     }
 
+    /**
+     * Where initialized settings are cached. Settings are not cached when a defaults report is requested,
+     * since cached settings do not record which defaults were applied to them.
+     *
+     * @return the settings cache directory, or null if settings are not cached
+     */
+    protected File getSettingsCacheDirectory() {
+        return settingsCache && defaultsReport == null ? settingsCacheDirectory : null;
+    }
+
+    /**
+     * The environment settings templates are rendered with, built from the project.
+     *
+     * @param environmentName the environment, e.g. QA
+     * @return the environment
+     * @throws MojoExecutionException if databricksRepo is missing
+     */
+    protected EnvironmentDTO createEnvironmentDTO(String environmentName) throws MojoExecutionException {
+        if (StringUtils.isBlank(databricksRepo)) {
+            throw new MojoExecutionException("databricksRepo property is missing");
+        }
+        return new EnvironmentDTO(project, environmentName, databricksRepo, databricksRepoKey, prefixToStrip);
+    }
+
     protected void validateRepoProperties() throws MojoExecutionException {
         if (!ALLOWED_REPO_TYPES.contains(databricksRepoType)) {
             throw new MojoExecutionException("Corrupted parameter: ${databricksRepoType}");
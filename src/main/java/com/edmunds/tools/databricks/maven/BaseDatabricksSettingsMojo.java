@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import java.io.File;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Base class for Mojos that read both the job and the cluster settings, e.g. plan and validate-settings.
+ */
+public abstract class BaseDatabricksSettingsMojo extends BaseDatabricksJobMojo {
+
+    /**
+     * The databricks cluster json file, directory or glob, see upsert-cluster.
+     */
+    @Parameter(
+        defaultValue = "${project.build.resources[0].directory}/databricks-plugin/databricks-cluster-settings.json",
+        property = "dbClusterFile")
+    protected File dbClusterFile;
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setDbClusterFile(File dbClusterFile) {
+        this.dbClusterFile = dbClusterFile;
+    }
+}
@@ -17,12 +17,11 @@
 package com.edmunds.tools.databricks.maven;
 
 import com.edmunds.rest.databricks.DTO.UpsertClusterDTO;
-import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
 import com.edmunds.tools.databricks.maven.util.EnvironmentDTOSupplier;
 import com.edmunds.tools.databricks.maven.util.SettingsInitializer;
 import com.edmunds.tools.databricks.maven.util.SettingsUtils;
 import java.io.File;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 
@@ -33,6 +32,7 @@ public abstract class BaseDatabricksUpsertClusterMojo extends BaseDatabricksMojo
 
     /**
      * The databricks cluster json file that contains all of the information for how to create databricks cluster.
+     * May also be a directory of json files, or a glob in the file name.
      */
     @Parameter(
         defaultValue = "${project.build.resources[0].directory}/databricks-plugin/databricks-cluster-settings.json",
@@ -54,26 +54,22 @@ public abstract class BaseDatabricksUpsertClusterMojo extends BaseDatabricksMojo
         if (settingsUtils == null) {
             settingsUtils = new SettingsUtils<>(
                 UpsertClusterDTO[].class, "/default-cluster.json", dbClusterFile,
-                getEnvironmentDTOSupplier(), getSettingsInitializer());
+                getEnvironmentDTOSupplier(), getSettingsInitializer(), getSettingsCacheDirectory());
         }
         return settingsUtils;
     }
 
     EnvironmentDTOSupplier getEnvironmentDTOSupplier() {
         if (environmentDTOSupplier == null) {
-            environmentDTOSupplier = () -> {
-                if (StringUtils.isBlank(databricksRepo)) {
-                    throw new MojoExecutionException("databricksRepo property is missing");
-                }
-                return new EnvironmentDTO(project, environment, databricksRepo, databricksRepoKey, prefixToStrip);
-            };
+            environmentDTOSupplier = () -> createEnvironmentDTO(environment);
         }
         return environmentDTOSupplier;
     }
 
     SettingsInitializer<UpsertClusterDTO> getSettingsInitializer() {
         if (settingsInitializer == null) {
-            settingsInitializer = new BaseDatabricksUpsertClusterMojoSettingsInitializer(validate);
+            settingsInitializer = new BaseDatabricksUpsertClusterMojoSettingsInitializer(validate,
+                new DefaultsReport(getLog(), defaultsReport, "clusters"));
         }
         return settingsInitializer;
     }
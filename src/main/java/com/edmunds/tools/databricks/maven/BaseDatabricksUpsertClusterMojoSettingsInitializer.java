@@ -1,17 +1,15 @@
 package com.edmunds.tools.databricks.maven;
 
-import com.edmunds.rest.databricks.DTO.EbsVolumeTypeDTO;
+import static com.edmunds.tools.databricks.maven.util.SettingsMerger.defaultNotEmpty;
+
 import com.edmunds.rest.databricks.DTO.UpsertClusterDTO;
 import com.edmunds.rest.databricks.DTO.clusters.AutoScaleDTO;
-import com.edmunds.rest.databricks.DTO.clusters.AwsAttributesDTO;
-import com.edmunds.rest.databricks.DTO.clusters.AwsAvailabilityDTO;
-import com.edmunds.rest.databricks.DTO.clusters.ClusterLogConfDTO;
 import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
 import com.edmunds.tools.databricks.maven.util.SettingsInitializer;
-import java.util.Collection;
-import java.util.Map;
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
+import com.edmunds.tools.databricks.maven.util.SettingsMerger;
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.Strategy;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
@@ -23,16 +21,45 @@ import org.apache.maven.plugin.logging.SystemStreamLog;
 public class BaseDatabricksUpsertClusterMojoSettingsInitializer implements SettingsInitializer<UpsertClusterDTO> {
 
     private static final Log log = new SystemStreamLog();
+    private static final SettingsMerger MERGER = new SettingsMerger()
+        .rule("num_workers", Strategy.REPLACE_IF_EMPTY,
+            (user, defaults) -> SettingsMerger.isMissing(user.get("autoscale")))
+        .rule("spark_version", Strategy.REPLACE_IF_EMPTY)
+        .mergeRule("aws_attributes")
+        .rule("aws_attributes.availability", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.ebs_volume_count", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.ebs_volume_size", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.ebs_volume_type", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.first_on_demand", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.instance_profile_arn", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.spot_bid_price_percent", Strategy.REPLACE_IF_EMPTY)
+        .rule("aws_attributes.zone_id", Strategy.REPLACE_IF_EMPTY)
+        .rule("node_type_id", Strategy.REPLACE_IF_EMPTY)
+        .rule("spark_env_vars", Strategy.REPLACE_IF_EMPTY)
+        .rule("autotermination_minutes", Strategy.REPLACE_IF_EMPTY)
+        .rule("artifact_paths", Strategy.REPLACE_IF_EMPTY)
+        .rule("driver_node_type_id", Strategy.REPLACE_IF_EMPTY)
+        .rule("spark_conf", Strategy.REPLACE_IF_EMPTY)
+        .rule("custom_tags", Strategy.REPLACE_IF_EMPTY, defaultNotEmpty("custom_tags"))
+        .rule("cluster_log_conf", Strategy.REPLACE_IF_MISSING,
+            (user, defaults) -> !SettingsMerger.isMissing(defaults.path("cluster_log_conf").get("dbfs"))
+                || !SettingsMerger.isMissing(defaults.path("cluster_log_conf").get("s3")));
 
     private final boolean validate;
+    private final DefaultsReport defaultsReport;
 
     BaseDatabricksUpsertClusterMojoSettingsInitializer(boolean validate) {
+        this(validate, new DefaultsReport(log, null, "clusters"));
+    }
+
+    BaseDatabricksUpsertClusterMojoSettingsInitializer(boolean validate, DefaultsReport defaultsReport) {
         this.validate = validate;
+        this.defaultsReport = defaultsReport;
     }
 
     @Override
     public void fillInDefaults(UpsertClusterDTO settingsDTO, UpsertClusterDTO defaultSettingsDTO,
-        EnvironmentDTO environmentDTO) {
+        EnvironmentDTO environmentDTO) throws JsonProcessingException {
         String clusterName = settingsDTO.getClusterName();
         if (StringUtils.isEmpty(clusterName)) {
             clusterName = environmentDTO.getGroupWithoutCompany() + "/" + environmentDTO.getArtifactId();
@@ -48,143 +75,24 @@ public class BaseDatabricksUpsertClusterMojoSettingsInitializer implements Setti
 
         if (!autoScaleValid) {
             settingsDTO.setAutoScale(null);
-            int numWorkers = settingsDTO.getNumWorkers();
-            if (numWorkers == 0) {
-                numWorkers = defaultSettingsDTO.getNumWorkers();
-                settingsDTO.setNumWorkers(numWorkers);
-                log.info(String.format("%s|set NumWorkers with %s", clusterName, numWorkers));
-            }
-        }
-
-        String sparkVersion = settingsDTO.getSparkVersion();
-        if (StringUtils.isEmpty(sparkVersion)) {
-            sparkVersion = defaultSettingsDTO.getSparkVersion();
-            settingsDTO.setSparkVersion(sparkVersion);
-            log.info(String.format("%s|set SparkVersion with %s", clusterName, sparkVersion));
         }
 
-        // AwsAttributes
-        AwsAttributesDTO awsAttributes = settingsDTO.getAwsAttributes();
-        AwsAttributesDTO awsAttributesDefault = defaultSettingsDTO.getAwsAttributes();
-        if (awsAttributes == null) {
-            awsAttributes = awsAttributesDefault;
-            settingsDTO.setAwsAttributes(awsAttributes);
-            log.info(String.format("%s|set AwsAttributes with %s", clusterName, awsAttributes));
-        } else {
-            AwsAvailabilityDTO availability = awsAttributes.getAvailability();
-            if (availability == null) {
-                availability = awsAttributesDefault.getAvailability();
-                awsAttributes.setAvailability(availability);
-                log.info(String.format("%s|set Availability with %s", clusterName, availability));
-            }
-
-            int ebsVolumeCount = awsAttributes.getEbsVolumeCount();
-            if (ebsVolumeCount == 0) {
-                ebsVolumeCount = awsAttributesDefault.getEbsVolumeCount();
-                awsAttributes.setEbsVolumeCount(ebsVolumeCount);
-                log.info(String.format("%s|set EbsVolumeCount with %s", clusterName, ebsVolumeCount));
-            }
-
-            int ebsVolumeSize = awsAttributes.getEbsVolumeSize();
-            if (ebsVolumeSize == 0) {
-                ebsVolumeSize = awsAttributesDefault.getEbsVolumeSize();
-                awsAttributes.setEbsVolumeSize(ebsVolumeSize);
-                log.info(String.format("%s|set EbsVolumeSize with %s", clusterName, ebsVolumeSize));
-            }
-
-            EbsVolumeTypeDTO ebsVolumeType = awsAttributes.getEbsVolumeType();
-            if (ebsVolumeType == null) {
-                ebsVolumeType = awsAttributesDefault.getEbsVolumeType();
-                awsAttributes.setEbsVolumeType(ebsVolumeType);
-                log.info(String.format("%s|set EbsVolumeType with %s", clusterName, ebsVolumeType));
-            }
-
-            // Should we handle this?
-            int firstOnDemand = awsAttributes.getFirstOnDemand();
-            if (firstOnDemand == 0) {
-                firstOnDemand = awsAttributesDefault.getFirstOnDemand();
-                awsAttributes.setFirstOnDemand(firstOnDemand);
-                log.info(String.format("%s|set FirstOnDemand with %s", clusterName, firstOnDemand));
-            }
-
-            // Or just throw an exception here
-            String instanceProfileArn = awsAttributes.getInstanceProfileArn();
-            if (StringUtils.isEmpty(instanceProfileArn)) {
-                instanceProfileArn = awsAttributesDefault.getInstanceProfileArn();
-                awsAttributes.setInstanceProfileArn(instanceProfileArn);
-                log.info(String.format("%s|set InstanceProfileArn with %s", clusterName, instanceProfileArn));
-            }
-
-            int spotBidPricePercent = awsAttributes.getSpotBidPricePercent();
-            if (spotBidPricePercent == 0) {
-                spotBidPricePercent = awsAttributesDefault.getSpotBidPricePercent();
-                awsAttributes.setSpotBidPricePercent(spotBidPricePercent);
-                log.info(String.format("%s|set SpotBidPricePercent with %s", clusterName, spotBidPricePercent));
-            }
-
-            String zoneId = awsAttributes.getZoneId();
-            if (StringUtils.isEmpty(zoneId)) {
-                zoneId = awsAttributesDefault.getZoneId();
-                awsAttributes.setZoneId(zoneId);
-                log.info(String.format("%s|set ZoneId with %s", clusterName, zoneId));
-            }
-        }
-
-        String nodeTypeId = settingsDTO.getNodeTypeId();
-        if (StringUtils.isEmpty(nodeTypeId)) {
-            nodeTypeId = defaultSettingsDTO.getNodeTypeId();
-            settingsDTO.setNodeTypeId(nodeTypeId);
-            log.info(String.format("%s|set NodeTypeId with %s", clusterName, nodeTypeId));
-        }
-
-        // Do we need it?
-        Map<String, String> sparkEnvVars = settingsDTO.getSparkEnvVars();
-        if (MapUtils.isEmpty(sparkEnvVars)) {
-            sparkEnvVars = defaultSettingsDTO.getSparkEnvVars();
-            settingsDTO.setSparkEnvVars(sparkEnvVars);
-            log.info(String.format("%s|set SparkEnvVars with %s", clusterName, sparkEnvVars));
-        }
-
-        int autoTerminationMinutes = settingsDTO.getAutoTerminationMinutes();
-        if (autoTerminationMinutes == 0) {
-            autoTerminationMinutes = defaultSettingsDTO.getAutoTerminationMinutes();
-            settingsDTO.setAutoTerminationMinutes(autoTerminationMinutes);
-            log.info(String.format("%s|set AutoTerminationMinutes with %s", clusterName, autoTerminationMinutes));
-        }
-
-        Collection<String> artifactPaths = settingsDTO.getArtifactPaths();
-        if (CollectionUtils.isEmpty(artifactPaths)) {
-            artifactPaths = defaultSettingsDTO.getArtifactPaths();
-            settingsDTO.setArtifactPaths(artifactPaths);
-            log.info(String.format("%s|set ArtifactPaths with %s", clusterName, artifactPaths));
-        }
-
-        String driverNodeTypeId = settingsDTO.getDriverNodeTypeId();
-        if (StringUtils.isEmpty(driverNodeTypeId)) {
-            driverNodeTypeId = defaultSettingsDTO.getDriverNodeTypeId();
-            settingsDTO.setDriverNodeTypeId(driverNodeTypeId);
-            log.info(String.format("%s|set DriverNodeTypeId with %s", clusterName, driverNodeTypeId));
-        }
+        defaultsReport.record(clusterName, MERGER.apply(settingsDTO, defaultSettingsDTO));
+    }
 
-        Map<String, String> sparkConf = settingsDTO.getSparkConf();
-        if (MapUtils.isEmpty(sparkConf)) {
-            sparkConf = defaultSettingsDTO.getSparkConf();
-            settingsDTO.setSparkConf(sparkConf);
-            log.info(String.format("%s|set SparkConf with %s", clusterName, sparkConf));
-        }
+    @Override
+    public String getSettingsName(UpsertClusterDTO settingsDTO) {
+        return settingsDTO.getClusterName();
+    }
 
-        Map<String, String> defaultCustomTags = defaultSettingsDTO.getCustomTags();
-        if (MapUtils.isEmpty(settingsDTO.getCustomTags()) && MapUtils.isNotEmpty(defaultCustomTags)) {
-            settingsDTO.setCustomTags(defaultCustomTags);
-            log.info(String.format("%s|set CustomTags with %s", clusterName, defaultCustomTags));
-        }
+    @Override
+    public String getCacheKey() {
+        return getClass().getName() + ":" + validate;
+    }
 
-        ClusterLogConfDTO defaultClusterLogConf = defaultSettingsDTO.getClusterLogConf();
-        if (settingsDTO.getClusterLogConf() == null && defaultClusterLogConf != null
-            && (defaultClusterLogConf.getDbfs() != null || defaultClusterLogConf.getS3() != null)) {
-            settingsDTO.setClusterLogConf(defaultClusterLogConf);
-            log.info(String.format("%s|set ClusterLogConf with %s", clusterName, defaultClusterLogConf));
-        }
+    @Override
+    public void complete() throws MojoExecutionException {
+        defaultsReport.write();
     }
 
     @Override
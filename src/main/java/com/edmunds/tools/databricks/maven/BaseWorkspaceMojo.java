@@ -17,19 +17,16 @@
 package com.edmunds.tools.databricks.maven;
 
 import static com.edmunds.tools.databricks.maven.model.EnvironmentDTO.stripCompanyPackage;
-import static org.apache.commons.io.FilenameUtils.getBaseName;
-import static org.apache.commons.lang3.StringUtils.substringAfter;
 
+import com.edmunds.tools.databricks.maven.util.NotebookTree;
+import com.edmunds.tools.databricks.maven.util.NotebookTree.Notebook;
 import com.edmunds.tools.databricks.maven.validation.ValidationUtil;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.SuffixFileFilter;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 
@@ -38,9 +35,6 @@ import org.apache.maven.plugins.annotations.Parameter;
  */
 public abstract class BaseWorkspaceMojo extends BaseDatabricksMojo {
 
-    // Valid extensions for databricks notebooks
-    public static final List<String> DATABRICKS_SOURCE_EXTENSIONS =
-        Collections.unmodifiableList(Arrays.asList("scala", "py", "r", "sql"));
     /**
      * This is the base path where databricks notebooks live in your project.
      */
@@ -63,6 +57,9 @@ public abstract class BaseWorkspaceMojo extends BaseDatabricksMojo {
         defaultValue = "${project.groupId}/${project.artifactId}")
     protected String workspacePrefix;
 
+    // Shares notebook trees when there is no plugin context, e.g. in unit tests
+    private final Map<Object, Object> notebookTrees = new HashMap<>();
+
     protected String getSourceFullWorkspacePath() {
         String strippedPrefix = stripCompanyPackage(prefixToStrip, workspacePrefix);
         return Paths.get(sourceWorkspacePath.getPath(), strippedPrefix).toString();
@@ -75,27 +72,46 @@ public abstract class BaseWorkspaceMojo extends BaseDatabricksMojo {
     }
 
     /**
-     * Validates a notebook path meets requirements for uploading to databricks.
+     * The notebooks under a local directory. The tree is built once per build and shared by the workspace goals.
      *
      * @param notebookPath the root notebook path containing all notebooks
+     * @return the notebook tree
+     * @throws MojoExecutionException if the directory can not be walked
+     */
+    @SuppressWarnings("unchecked")
+    NotebookTree getNotebookTree(File notebookPath) throws MojoExecutionException {
+        Map<Object, Object> context = getPluginContext() != null ? getPluginContext() : notebookTrees;
+        String key = NotebookTree.class.getName() + ":" + notebookPath.getAbsolutePath();
+        NotebookTree tree = (NotebookTree) context.get(key);
+        if (tree == null) {
+            try {
+                tree = NotebookTree.scan(notebookPath);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Could not read notebooks at [%s]",
+                    notebookPath.getPath()), e);
+            }
+            context.put(key, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Validates notebook paths meet requirements for uploading to databricks.
+     *
+     * @param notebookTree the notebooks
      * @throws MojoExecutionException if validation fails
      */
-    void validateNotebooks(File notebookPath) throws MojoExecutionException {
-        if (!notebookPath.exists()) {
-            getLog().info(String.format("No notebooks found at [%s]", notebookPath.getPath()));
+    void validateNotebooks(NotebookTree notebookTree) throws MojoExecutionException {
+        if (!notebookTree.getRoot().toFile().exists()) {
+            getLog().info(String.format("No notebooks found at [%s]", notebookTree.getRoot()));
             return;
         }
-        Collection<File> files = FileUtils.listFiles(notebookPath,
-            new SuffixFileFilter(DATABRICKS_SOURCE_EXTENSIONS),
-            DirectoryFileFilter.DIRECTORY);
-        for (File file : files) {
-            // e.g. the path under the local root, not the full path to it
-            String relativePath = substringAfter(file.getParentFile().getPath(), notebookPath.getPath());
-            String remoteFilePath = relativePath + "/" + getBaseName(file.getName());
-            getLog().info(String.format("Validating: [%s]", remoteFilePath));
+        for (Notebook notebook : notebookTree.getNotebooks()) {
+            // e.g. the path under the local root, the remote path has the dots of a groupId replaced
+            String localPath = "/" + FilenameUtils.removeExtension(notebook.getRelativePath().toString());
+            getLog().info(String.format("Validating: [%s]", localPath));
             if (validate) {
-                ValidationUtil
-                    .validatePath(remoteFilePath, project.getGroupId(), project.getArtifactId(), prefixToStrip);
+                ValidationUtil.validatePath(localPath, project.getGroupId(), project.getArtifactId(), prefixToStrip);
             }
         }
     }
@@ -109,7 +125,7 @@ public abstract class BaseWorkspaceMojo extends BaseDatabricksMojo {
     }
 
     public String getWorkspacePrefix() {
-        return "/" + stripCompanyPackage(prefixToStrip, workspacePrefix).replaceAll("\\.", "/");
+        return "/" + stripCompanyPackage(prefixToStrip, workspacePrefix).replace('.', '/');
     }
 
     public void setSourceWorkspacePath(File sourceWorkspacePath) {
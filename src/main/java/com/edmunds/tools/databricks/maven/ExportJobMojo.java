@@ -18,59 +18,171 @@ package com.edmunds.tools.databricks.maven;
 
 import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
 
-import com.edmunds.rest.databricks.DTO.JobsDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
 import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.tools.databricks.maven.util.JobIterator;
+import com.edmunds.tools.databricks.maven.util.SettingsDiffUtils;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 /**
- * Exports a job as a JobSettingsDTO json object. Will emit multiple, if job name is not unique.
+ * Exports jobs as JobSettingsDTO json files, one file per job, in the same shape as databricks-job-settings.json.
+ * Jobs are selected by exact name, glob (jobName containing * or ?) or regex (jobNameRegex).
  */
 @Mojo(name = "export-job", requiresProject = true)
 public class ExportJobMojo extends BaseDatabricksMojo {
 
+    private static final Pattern ILLEGAL_FILE_NAME_CHARS = Pattern.compile("[^A-Za-z0-9._-]");
+
     /**
-     * The databricks job name to export.
+     * The databricks job name to export. May be a glob, where * matches any characters (including /)
+     * and ? matches a single character.
      */
-    @Parameter(property = "jobName", required = true)
+    @Parameter(property = "jobName")
     private String jobName;
 
+    /**
+     * A regex matched against the full job name, used instead of jobName.
+     */
+    @Parameter(property = "jobNameRegex")
+    private String jobNameRegex;
+
+    /**
+     * The directory the job settings files are written to.
+     */
+    @Parameter(property = "exportJobDirectory",
+        defaultValue = "${project.build.directory}/databricks-plugin/exported-jobs")
+    private File exportJobDirectory;
+
     @Override
     public void execute() throws MojoExecutionException {
-        List<Long> jobIds = getJobIds();
+        List<JobDTO> jobs = getJobs();
+
+        if (jobs.size() == 0) {
+            getLog().warn(String.format("No jobs found matching: [%s]", describeSelection()));
+            return;
+        }
+
+        writeJobs(jobs);
+        getLog().info(String.format("Exported [%s] jobs to: [%s]", jobs.size(), exportJobDirectory));
+    }
+
+    /**
+     * The matching jobs, as listed. The listing already holds the full settings, no job is fetched again.
+     *
+     * @return jobs
+     * @throws MojoExecutionException exception
+     */
+    List<JobDTO> getJobs() throws MojoExecutionException {
+        Predicate<String> nameFilter = getNameFilter();
+        List<JobDTO> jobs = new ArrayList<>();
+        try (JobIterator jobIterator = openJobIterator(name -> name != null && nameFilter.test(name))) {
+            for (JobDTO jobDTO = jobIterator.next(); jobDTO != null; jobDTO = jobIterator.next()) {
+                jobs.add(jobDTO);
+            }
+        } catch (DatabricksRestException | IOException e) {
+            throw new MojoExecutionException("Could not list jobs.", e);
+        }
+
+        return jobs;
+    }
+
+    private void writeJobs(List<JobDTO> jobs) throws MojoExecutionException {
+        Map<String, Integer> fileNameCounts = new HashMap<>();
+        for (JobDTO job : jobs) {
+            fileNameCounts.merge(toFileName(job.getSettings().getName()), 1, Integer::sum);
+        }
 
-        if (jobIds.size() == 0) {
-            getLog().warn(String.format("No jobs found with name: [%s]", jobName));
+        exportJobDirectory.mkdirs();
+        for (JobDTO job : jobs) {
+            String fileName = toFileName(job.getSettings().getName());
+            // Jobs that share a name are told apart by id
+            if (fileNameCounts.get(fileName) > 1) {
+                fileName = fileName + "-" + job.getJobId();
+            }
+            File file = new File(exportJobDirectory, fileName + ".json");
+
+            ArrayNode settings = OBJECT_MAPPER.createArrayNode().add(SettingsDiffUtils.normalize(job.getSettings()));
+            try {
+                OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, settings);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Could not write job: [%s] to: [%s]",
+                    job.getJobId(), file), e);
+            }
+            getLog().info(String.format("Exported job: [%s] to: [%s]", job.getSettings().getName(), file));
         }
+    }
 
-        for (Long jobId : jobIds) {
+    private Predicate<String> getNameFilter() throws MojoExecutionException {
+        Pattern pattern;
+        if (StringUtils.isNotBlank(jobNameRegex)) {
             try {
-                JobDTO jobDTO = getDatabricksServiceFactory().getJobService().getJob(jobId);
-                getLog().info("\n" + OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(jobDTO));
-            } catch (DatabricksRestException | IOException e) {
-                throw new MojoExecutionException(String.format("Could not get job for id: [%s]", jobId), e);
+                pattern = Pattern.compile(jobNameRegex);
+            } catch (PatternSyntaxException e) {
+                throw new MojoExecutionException(String.format("Invalid jobNameRegex: [%s]", jobNameRegex), e);
             }
+        } else if (StringUtils.isBlank(jobName)) {
+            throw new MojoExecutionException("Either jobName or jobNameRegex must be set.");
+        } else if (StringUtils.containsAny(jobName, '*', '?')) {
+            pattern = globToPattern(jobName);
+        } else {
+            return jobName::equals;
         }
+        return name -> pattern.matcher(name).matches();
     }
 
-    List<Long> getJobIds() throws MojoExecutionException {
-        ArrayList<Long> jobIds = new ArrayList<>();
-        try {
-            JobsDTO jobs = getDatabricksServiceFactory().getJobService().listAllJobs();
-            for (JobDTO jobDTO : jobs.getJobs()) {
-                if (jobDTO.getSettings().getName().equals(jobName)) {
-                    jobIds.add(jobDTO.getJobId());
-                }
+    private String describeSelection() {
+        return StringUtils.isNotBlank(jobNameRegex) ? jobNameRegex : jobName;
+    }
+
+    static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
             }
-        } catch (DatabricksRestException | IOException e) {
-            throw new MojoExecutionException("Could not list clusters.", e);
         }
+        return Pattern.compile(regex.toString());
+    }
+
+    static String toFileName(String jobName) {
+        return ILLEGAL_FILE_NAME_CHARS.matcher(jobName).replaceAll("_");
+    }
 
-        return jobIds;
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setJobNameRegex(String jobNameRegex) {
+        this.jobNameRegex = jobNameRegex;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setExportJobDirectory(File exportJobDirectory) {
+        this.exportJobDirectory = exportJobDirectory;
     }
 }
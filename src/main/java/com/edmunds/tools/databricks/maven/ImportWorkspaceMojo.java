@@ -16,25 +16,41 @@
 
 package com.edmunds.tools.databricks.maven;
 
-import static org.apache.commons.io.FileUtils.readFileToString;
-import static org.apache.commons.io.FilenameUtils.getBaseName;
-import static org.apache.commons.io.FilenameUtils.getExtension;
-import static org.apache.commons.lang3.StringUtils.substringAfter;
-
 import com.edmunds.rest.databricks.DTO.workspace.ExportFormatDTO;
 import com.edmunds.rest.databricks.DTO.workspace.LanguageDTO;
 import com.edmunds.rest.databricks.DatabricksRestException;
 import com.edmunds.rest.databricks.request.ImportWorkspaceRequest;
 import com.edmunds.rest.databricks.service.WorkspaceService;
+import com.edmunds.tools.databricks.maven.util.DbcArchive;
+import com.edmunds.tools.databricks.maven.util.ImportManifest;
+import com.edmunds.tools.databricks.maven.util.NotebookTree;
+import com.edmunds.tools.databricks.maven.util.NotebookTree.Notebook;
+import com.edmunds.tools.databricks.maven.util.WorkspacePruner;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.Collection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.SuffixFileFilter;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -46,13 +62,56 @@ import org.apache.maven.plugins.annotations.Parameter;
 @Mojo(name = "import-workspace", requiresProject = true)
 public class ImportWorkspaceMojo extends BaseWorkspaceMojo {
 
+    // The import API takes at most 10 MB, base64 encoded
+    private static final long MAX_ARCHIVE_BYTES = 10L * 1024 * 1024 * 3 / 4;
+
     /**
      * The number of threads to use during import.<br>
      */
     @Parameter(property = "import.threads")
     private int threads = 20;
 
-    private ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    /**
+     * Where the content hashes of the imported notebooks are kept. Set it to a path in your repository to share
+     * it between build machines.
+     */
+    @Parameter(property = "import.manifest",
+            defaultValue = "${project.build.directory}/databricks-plugin/import-manifest.json")
+    protected File importManifest;
+
+    /**
+     * If true, notebooks whose content did not change since the last import into the same workspace are skipped.
+     * The manifest only knows what was imported, not the workspace, so only turn it on if notebooks under the
+     * workspace prefix are never edited or deleted in the workspace.
+     */
+    @Parameter(property = "import.incremental", defaultValue = "false")
+    protected boolean importIncremental;
+
+    /**
+     * The maximum number of minutes to wait for all notebooks to be imported.
+     */
+    @Parameter(property = "import.timeoutMinutes", defaultValue = "60")
+    private int importTimeoutMinutes = 60;
+
+    /**
+     * If true, notebooks under the workspace prefix that no longer exist locally are deleted after the import,
+     * along with the directories left empty.
+     */
+    @Parameter(property = "import.sync", defaultValue = "false")
+    protected boolean sync;
+
+    /**
+     * The maximum number of notebooks sync may delete. If more are orphaned, nothing is deleted and the goal fails.
+     */
+    @Parameter(property = "import.syncMaxDeletes", defaultValue = "50")
+    protected int syncMaxDeletes = 50;
+
+    /**
+     * If true and the workspace prefix does not exist yet, all notebooks are imported with a single request, as a
+     * databricks archive (DBC). Archives over the import size limit, and later deploys, import notebook by notebook.
+     */
+    @Parameter(property = "import.archive", defaultValue = "false")
+    protected boolean importArchive;
 
     /**
      * Execute ImportWorkspaceMojo.
@@ -62,7 +121,7 @@ public class ImportWorkspaceMojo extends BaseWorkspaceMojo {
     public void execute() throws MojoExecutionException {
         try {
             //We have to validate before importing because it hasn't been done already.
-            validateNotebooks(sourceWorkspacePath);
+            validateNotebooks(getNotebookTree(sourceWorkspacePath));
             importWorkspace(sourceWorkspacePath);
         } catch (DatabricksRestException | IOException e) {
             throw new MojoExecutionException(String.format("Could not execute workspace command: [%s]. Local Path: "
@@ -70,68 +129,122 @@ public class ImportWorkspaceMojo extends BaseWorkspaceMojo {
         }
     }
 
-    protected void importWorkspace(File workspacePath) throws IOException, DatabricksRestException {
+    protected void importWorkspace(File workspacePath)
+            throws IOException, DatabricksRestException, MojoExecutionException {
         //We use packaged workspace dir to import notebooks into databricks.
         if (!workspacePath.exists()) {
             // Oh just no notebooks. Warn just incase user wasn't expecting this.
             getLog().warn(String.format("No notebooks found at [%s]", workspacePath.getPath()));
         } else {
             getLog().info("Working on copying [" + workspacePath + "] on [" + threads + "] threads.");
-            Collection<File> files = FileUtils.listFiles(workspacePath,
-                    new SuffixFileFilter(DATABRICKS_SOURCE_EXTENSIONS),
-                    DirectoryFileFilter.DIRECTORY);
-
-            for (File file : files) {
-                // e.g. the path under the local root, not the full path to it
-                String relativePath = substringAfter(file.getParentFile().getPath(), workspacePath.getPath())
-                        .replaceAll("[.\\\\]", "/");
-                String remoteFilePath = relativePath + "/" + getBaseName(file.getName());
-
-                createRemoteDir(relativePath);
-
-                LanguageDTO languageDTO = getLanguageDTO(file);
-                getLog().info(
-                        String.format("writing remote file: [%s] with source type: [%s]", remoteFilePath, languageDTO));
-
-                String source = readFileToString(file, StandardCharsets.UTF_8);
-                getLog().debug(String.format("file path: [%s] has source:%n%s", file.getPath(), source));
-
-                ImportWorkspaceRequest importWorkspaceRequest =
-                        new ImportWorkspaceRequest.ImportWorkspaceRequestBuilder(
-                                remoteFilePath)
-                                .withContent(source.getBytes(StandardCharsets.UTF_8))
-                                .withFormat(ExportFormatDTO.SOURCE)
-                                .withLanguage(languageDTO)
-                                .withOverwrite(true)
-                                .build();
-
-                // slightly hacky way, to make sure that unit test calls are ran serially
-                if (threads == 1) {
-                    getWorkspaceService().importWorkspace(importWorkspaceRequest);
-                } else {
-                    executorService.execute(() -> {
-                        try {
-                            getWorkspaceService().importWorkspace(importWorkspaceRequest);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+            // The service is created first, it resolves the host from the environment
+            WorkspaceService workspaceService = getWorkspaceService();
+            ImportManifest manifest = importManifest == null ? null
+                    : ImportManifest.load(importManifest, StringUtils.defaultString(host));
+            NotebookTree notebookTree = getNotebookTree(workspacePath);
+            // At most twice as many uploads as threads wait in the queue, beyond that the caller uploads as well.
+            // slightly hacky way, to make sure that unit test calls are ran serially
+            ThreadPoolExecutor pool = threads <= 1 ? null : new ThreadPoolExecutor(threads, threads,
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads * 2),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            try {
+                if (importArchive && importArchive(workspaceService, notebookTree, manifest)) {
+                    return;
+                }
+                NotebookImport notebookImport = new NotebookImport(workspaceService, manifest,
+                        pool == null ? Runnable::run : pool);
+                notebookImport.start(notebookTree);
+                notebookImport.await();
+                if (sync) {
+                    Set<String> localNotebooks = notebookTree.getNotebooks().stream()
+                            .map(Notebook::getRemotePath)
+                            .collect(Collectors.toSet());
+                    new WorkspacePruner(workspaceService, getLog(), threads)
+                            .prune(getWorkspacePrefix(), localNotebooks, syncMaxDeletes);
+                }
+            } finally {
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
+                if (manifest != null) {
+                    manifest.save();
                 }
             }
         }
     }
 
-    private LanguageDTO getLanguageDTO(File file) {
-        String extension = getExtension(file.getName()).toUpperCase();
-        if (extension.equals("PY")) {
-            return LanguageDTO.PYTHON;
+    /**
+     * Imports the notebooks under the workspace prefix as one archive, if the prefix does not exist remotely.
+     * A DBC import can not overwrite, so this only applies to first deploys, and only if every notebook is under
+     * the prefix.
+     *
+     * @return true if the notebooks were imported
+     */
+    private boolean importArchive(WorkspaceService workspaceService, NotebookTree notebookTree,
+            ImportManifest manifest) throws IOException, DatabricksRestException {
+        String prefix = getWorkspacePrefix();
+        int archived = notebookTree.getNotebooks(prefix).size();
+        if (archived == 0) {
+            getLog().info(String.format("No notebooks found under [%s], importing notebook by notebook", prefix));
+            return false;
+        }
+        if (archived < notebookTree.getNotebooks().size()) {
+            getLog().info(String.format("[%s] of [%s] notebooks are outside of [%s], importing notebook by notebook",
+                    notebookTree.getNotebooks().size() - archived, notebookTree.getNotebooks().size(), prefix));
+            return false;
+        }
+        if (remoteExists(workspaceService, prefix)) {
+            getLog().info(String.format("[%s] already exists, importing notebook by notebook", prefix));
+            return false;
+        }
+        DbcArchive archive = DbcArchive.pack(notebookTree, prefix, MAX_ARCHIVE_BYTES);
+        if (archive == null) {
+            getLog().info(String.format("Notebooks under [%s] exceed the archive size limit of [%s] KB, importing "
+                    + "notebook by notebook", prefix, MAX_ARCHIVE_BYTES / 1024));
+            return false;
+        }
+
+        long start = System.nanoTime();
+        String parent = StringUtils.substringBeforeLast(prefix, "/");
+        if (!parent.isEmpty()) {
+            workspaceService.mkdirs(parent);
         }
-        return LanguageDTO.valueOf(extension);
+        getLog().info(String.format("writing [%s] notebooks to: [%s] as one archive of [%s] KB",
+                archive.getNotebookHashes().size(), prefix, archive.getBytes().length / 1024));
+        workspaceService.importWorkspace(new ImportWorkspaceRequest.ImportWorkspaceRequestBuilder(prefix)
+                .withContent(archive.getBytes())
+                .withFormat(ExportFormatDTO.DBC)
+                .build());
+        if (manifest != null) {
+            archive.getNotebookHashes().forEach((relativePath, hash) ->
+                    manifest.imported(prefix + "/" + relativePath, hash));
+        }
+        getLog().info(String.format("Imported [%s] notebooks in one request in [%.1f] s",
+                archive.getNotebookHashes().size(), (System.nanoTime() - start) / 1e9));
+        return true;
     }
 
-    private void createRemoteDir(String remoteDir) throws IOException, DatabricksRestException {
+    private boolean remoteExists(WorkspaceService workspaceService, String path)
+            throws IOException, DatabricksRestException {
+        try {
+            workspaceService.listStatus(URLEncoder.encode(path, "UTF-8"));
+            return true;
+        } catch (DatabricksRestException e) {
+            // Any other failure, e.g. rate limiting, does not tell whether the path exists
+            if (StringUtils.contains(e.getMessage(), "RESOURCE_DOES_NOT_EXIST")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void createRemoteDir(WorkspaceService workspaceService, String remoteDir) {
         getLog().info(String.format("creating dir if it does not already exist: [%s]", remoteDir));
-        getWorkspaceService().mkdirs(remoteDir);
+        try {
+            workspaceService.mkdirs(remoteDir);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
     }
 
     private WorkspaceService getWorkspaceService() {
@@ -144,4 +257,164 @@ public class ImportWorkspaceMojo extends BaseWorkspaceMojo {
     void setThreads(int threads) {
         this.threads = threads;
     }
-}
\ No newline at end of file
+
+    /**
+     * Uploads the notebooks of a tree.
+     * <p>
+     * Only the deepest directories with changed notebooks are created, each once and concurrently, creating a
+     * directory creates its parents as well. Every upload waits for its directory instead of creating it.
+     * </p>
+     */
+    private class NotebookImport {
+
+        private final WorkspaceService workspaceService;
+        private final ImportManifest manifest;
+        private final Executor executor;
+        private final List<CompletableFuture<?>> uploads = new ArrayList<>();
+        private final Map<String, Throwable> failures = new ConcurrentSkipListMap<>();
+        private final AtomicInteger imported = new AtomicInteger();
+        private final AtomicLong importedBytes = new AtomicLong();
+        private final long start = System.nanoTime();
+        private int skipped;
+
+        NotebookImport(WorkspaceService workspaceService, ImportManifest manifest, Executor executor) {
+            this.workspaceService = workspaceService;
+            this.manifest = manifest;
+            this.executor = executor;
+        }
+
+        void start(NotebookTree notebookTree) throws IOException {
+            // Uploads start once the tree is complete rather than per walked directory: every notebook is validated
+            // before the first upload, and the changed notebooks decide which directories are created.
+            // An incremental import hashes the notebooks on the pool instead of the calling thread.
+            List<Notebook> notebooks = notebookTree.getNotebooks();
+            List<CompletableFuture<Boolean>> unchanged = new ArrayList<>(notebooks.size());
+            for (Notebook notebook : notebooks) {
+                unchanged.add(importIncremental && manifest != null
+                        ? CompletableFuture.supplyAsync(() -> isUnchanged(notebook), executor)
+                        : CompletableFuture.completedFuture(false));
+            }
+
+            // Descendants sort after their ancestors, so in reverse order subdirectories come first
+            NavigableMap<String, List<Notebook>> changed = new TreeMap<>(Comparator.reverseOrder());
+            for (int i = 0; i < notebooks.size(); i++) {
+                Notebook notebook = notebooks.get(i);
+                if (join(unchanged.get(i))) {
+                    getLog().debug(String.format("skipping unchanged remote file: [%s]", notebook.getRemotePath()));
+                    skipped++;
+                } else {
+                    changed.computeIfAbsent(notebook.getRemoteDir(), remoteDir -> new ArrayList<>()).add(notebook);
+                }
+            }
+
+            NavigableMap<String, CompletableFuture<Void>> created = new TreeMap<>();
+            for (Map.Entry<String, List<Notebook>> directory : changed.entrySet()) {
+                String remoteDir = directory.getKey();
+                CompletableFuture<Void> dirCreated = remoteDir.isEmpty() ? CompletableFuture.completedFuture(null)
+                        : createdBySubdirectory(created, remoteDir);
+                if (dirCreated == null) {
+                    dirCreated = CompletableFuture.runAsync(() -> createRemoteDir(workspaceService, remoteDir),
+                            executor);
+                }
+                created.put(remoteDir, dirCreated);
+                for (Notebook notebook : directory.getValue()) {
+                    uploads.add(dirCreated.handleAsync((ignored, failure) -> {
+                        upload(notebook, failure);
+                        return null;
+                    }, executor));
+                }
+            }
+        }
+
+        private boolean isUnchanged(Notebook notebook) {
+            try {
+                return manifest.isUnchanged(notebook.getRemotePath(), ImportManifest.sha256(notebook.getFile()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private boolean join(CompletableFuture<Boolean> unchanged) throws IOException {
+            try {
+                return unchanged.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
+            }
+        }
+
+        private CompletableFuture<Void> createdBySubdirectory(NavigableMap<String, CompletableFuture<Void>> created,
+                String remoteDir) {
+            Map.Entry<String, CompletableFuture<Void>> subdirectory = created.ceilingEntry(remoteDir + "/");
+            return subdirectory != null && subdirectory.getKey().startsWith(remoteDir + "/")
+                    ? subdirectory.getValue() : null;
+        }
+
+        private void upload(Notebook notebook, Throwable directoryFailure) {
+            String remoteFilePath = notebook.getRemotePath();
+            if (directoryFailure != null) {
+                failures.put(remoteFilePath, directoryFailure instanceof CompletionException
+                        ? directoryFailure.getCause() : directoryFailure);
+                return;
+            }
+            try {
+                byte[] content = Files.readAllBytes(notebook.getFile());
+                LanguageDTO languageDTO = notebook.getLanguage();
+                getLog().info(String.format("writing remote file: [%s] with source type: [%s]", remoteFilePath,
+                        languageDTO));
+                getLog().debug(String.format("file path: [%s] has [%s] bytes", notebook.getFile(), content.length));
+                workspaceService.importWorkspace(
+                        new ImportWorkspaceRequest.ImportWorkspaceRequestBuilder(remoteFilePath)
+                                .withContent(content)
+                                .withFormat(ExportFormatDTO.SOURCE)
+                                .withLanguage(languageDTO)
+                                .withOverwrite(true)
+                                .build());
+                if (manifest != null) {
+                    manifest.imported(remoteFilePath, ImportManifest.sha256(content));
+                }
+                imported.incrementAndGet();
+                importedBytes.addAndGet(content.length);
+            } catch (Exception e) {
+                failures.put(remoteFilePath, e);
+            }
+        }
+
+        /**
+         * Waits for all uploads, reports failures and throughput.
+         */
+        void await() throws MojoExecutionException {
+            try {
+                CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0]))
+                        .get(importTimeoutMinutes, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while importing notebooks", e);
+            } catch (TimeoutException e) {
+                throw new MojoExecutionException(String.format("Import of [%s] notebooks did not finish within "
+                        + "[%s] minutes", uploads.size(), importTimeoutMinutes), e);
+            } catch (ExecutionException e) {
+                // Uploads record their own failures
+                throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+            }
+
+            if (!failures.isEmpty()) {
+                failures.forEach((remoteFilePath, failure) -> getLog().error(
+                        String.format("Failed to import: [%s] %s", remoteFilePath, failure.getMessage())));
+                Throwable first = failures.values().iterator().next();
+                MojoExecutionException exception = new MojoExecutionException(String.format(
+                        "Failed to import [%s] of [%s] notebooks: %s", failures.size(), uploads.size(),
+                        failures.keySet()), first);
+                failures.values().stream().skip(1).forEach(exception::addSuppressed);
+                throw exception;
+            }
+
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            getLog().info(String.format("Imported [%s] notebooks (%s KB) in [%.1f] s: [%.1f] notebooks/s, "
+                            + "skipped [%s] unchanged notebooks.", imported.get(), importedBytes.get() / 1024, seconds,
+                    imported.get() / seconds, skipped));
+        }
+    }
+}
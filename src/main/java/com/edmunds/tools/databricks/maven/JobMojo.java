@@ -21,19 +21,30 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.edmunds.rest.databricks.DTO.RunNowDTO;
 import com.edmunds.rest.databricks.DTO.RunsDTO;
-import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
 import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunResultStateDTO;
 import com.edmunds.rest.databricks.DatabricksRestException;
-import com.google.common.util.concurrent.Uninterruptibles;
+import com.edmunds.tools.databricks.maven.util.ConcurrencyUtils;
+import com.edmunds.tools.databricks.maven.util.JobIndex;
+import com.edmunds.tools.databricks.maven.util.RunStateTracker;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 /**
- * Controls a given databricks job [start\stop\restart].
+ * Controls a given databricks job [start\stop\restart\run and wait].
  * <p>
  * NOTE 1: If a job does not have a unique name, it will fail unless failOnDuplicateJobName=false,
  * in which case only the first one will be updated.
@@ -41,6 +52,9 @@ import org.apache.maven.plugins.annotations.Parameter;
  * <p>
  * NOTE 2: If a job has more than 1 active run, ALL of them will be cancelled on STOP\RESTART.
  * </p>
+ * <p>
+ * NOTE 3: When no jobName is given, all jobs of the project are controlled concurrently, see job.parallelism.
+ * </p>
  */
 @Mojo(name = "job", requiresProject = true)
 public class JobMojo extends BaseDatabricksJobMojo {
@@ -48,6 +62,8 @@ public class JobMojo extends BaseDatabricksJobMojo {
     private static final int RUNS_OFFSET = 0;
     private static final int RUNS_LIMIT = 1000;
     private static final String STREAM = "stream";
+    // A run is usually polled for much longer than cancelled runs are, so it backs off further
+    private static final long RUN_MAX_POLL_MILLIS = 30000;
     /**
      * The databricks job name to operate on.
      */
@@ -58,74 +74,139 @@ public class JobMojo extends BaseDatabricksJobMojo {
      * STOP - stop a job.<br>
      * START - start a job.<br>
      * RESTART - restart a running job.<br>
+     * RUN_AND_WAIT - start a job and wait for the run to finish, failing unless it succeeds.<br>
      */
     @Parameter(defaultValue = "RESTART", property = "job.command", required = true)
     private JobCommand command;
     /**
      * Whether the command should be only executed on streaming jobs only.
      * Whether a job is streaming is based on its job name.
+     * Ignored for RUN_AND_WAIT, since streaming jobs do not finish.
      */
     @Parameter(property = "streamingOnly", defaultValue = "true")
     private boolean streamingOnly;
+    /**
+     * How long RESTART waits for the cancelled runs to stop before giving up, in seconds.
+     */
+    @Parameter(property = "job.stopTimeoutSeconds", defaultValue = "600")
+    private int stopTimeoutSeconds;
+    /**
+     * How long RUN_AND_WAIT waits for a run to finish before failing, in seconds.
+     * A run that is still active by then is cancelled.
+     */
+    @Parameter(property = "job.runTimeoutSeconds", defaultValue = "3600")
+    private int runTimeoutSeconds;
+    /**
+     * The maximum number of jobs controlled at the same time, when no jobName is given.
+     */
+    @Parameter(property = "job.parallelism", defaultValue = "10")
+    private int parallelism;
 
     @Override
     public void execute() throws MojoExecutionException {
-
+        List<String> jobNames = new ArrayList<>();
         if (isBlank(jobName)) {
-            for (JobSettingsDTO settingsDTO : getSettingsUtils().buildSettingsDTOsWithDefaults()) {
-                jobName = settingsDTO.getName();
-                controlJob();
-            }
+            getSettingsUtils().forEachSettingsDTOWithDefaults(settingsDTO -> jobNames.add(settingsDTO.getName()));
         } else {
-            controlJob();
+            jobNames.add(jobName);
         }
 
-    }
-
-    private void controlJob() throws MojoExecutionException {
-        if (streamingOnly && !containsIgnoreCase(jobName, STREAM)) {
-            getLog().warn(String.format(
-                "Job: [%s] is not streaming. Either include '%s' in the name if this is incorrect, "
-                    + "or set streamingOnly=false to override this.",
-                jobName, STREAM));
+        List<String> controlledJobNames = new ArrayList<>();
+        for (String name : jobNames) {
+            if (streamingOnly && command != JobCommand.RUN_AND_WAIT && !containsIgnoreCase(name, STREAM)) {
+                getLog().warn(String.format(
+                    "Job: [%s] is not streaming. Either include '%s' in the name if this is incorrect, "
+                        + "or set streamingOnly=false to override this.",
+                    name, STREAM));
+            } else {
+                controlledJobNames.add(name);
+            }
+        }
+        if (controlledJobNames.isEmpty()) {
             return;
         }
 
-        Long jobId = getJobId(jobName);
-        if (jobId != null) {
+        // One listing for all jobs, rather than one per job
+        Set<String> nameFilter = new HashSet<>(controlledJobNames);
+        JobIndex jobIndex = loadJobIndex(nameFilter::contains);
+
+        List<Callable<JobResult>> tasks = new ArrayList<>();
+        for (String name : controlledJobNames) {
+            tasks.add(() -> controlJob(name, jobIndex));
+        }
+        List<JobResult> results = ConcurrencyUtils.invokeAll(tasks, parallelism, "job " + command);
+
+        Map<JobOutcome, Long> counts = results.stream()
+            .collect(Collectors.groupingBy(JobResult::getOutcome, () -> new EnumMap<>(JobOutcome.class),
+                Collectors.counting()));
+        getLog().info(String.format("Command: [%s] results: %s", command, counts));
+
+        List<JobResult> failures = results.stream()
+            .filter(result -> result.getOutcome() == JobOutcome.FAILED).collect(Collectors.toList());
+        if (!failures.isEmpty()) {
+            MojoExecutionException exception = new MojoExecutionException(String.format(
+                "Command: [%s] failed for jobs: %s", command,
+                failures.stream().map(JobResult::getJobName).collect(Collectors.toList())),
+                failures.get(0).getError());
+            failures.stream().skip(1).forEach(failure -> exception.addSuppressed(failure.getError()));
+            throw exception;
+        }
+    }
+
+    /**
+     * Runs the command against a single job. Failures are returned rather than thrown,
+     * so that one failing job does not prevent the others from being controlled.
+     *
+     * @param name job name
+     * @param jobIndex the jobs of the workspace
+     * @return the result for this job
+     */
+    JobResult controlJob(String name, JobIndex jobIndex) {
+        Long jobId = null;
+        try {
+            JobDTO jobDTO = jobIndex.getJob(name, failOnDuplicateJobName);
+            if (jobDTO == null) {
+                String message = String.format("No job id found for: [%s]", name);
+                getLog().error(message);
+                // A run that was asked for and never started must not pass as a successful build
+                return command == JobCommand.RUN_AND_WAIT
+                    ? new JobResult(name, JobOutcome.FAILED, new MojoExecutionException(message))
+                    : new JobResult(name, JobOutcome.NOT_FOUND, null);
+            }
+            jobId = jobDTO.getJobId();
             getLog().info(String.format("Preparing to run command: [%s] on: https://%s/#job/%s", command, host, jobId));
 
-            try {
-                switch (command) {
-                    case STOP: {
-                        stopActiveRuns(jobId);
-                        break;
-                    }
-                    case START: {
-                        startRun(jobId);
-                        break;
-                    }
-                    case RESTART: {
-                        stopActiveRuns(jobId);
-
-                        while (getRunDTOs(jobId).length > 0) {
-                            Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
-                            getLog().info("Waiting for jobs to finish stopping.");
-                        }
-
-                        startRun(jobId);
-                        break;
-                    }
-                    default: {
-                        throw new MojoExecutionException("this should not happen");
-                    }
+            switch (command) {
+                case STOP: {
+                    stopActiveRuns(jobId);
+                    break;
+                }
+                case START: {
+                    startRun(jobId);
+                    break;
+                }
+                case RESTART: {
+                    RunStateTracker runStateTracker = stopActiveRuns(jobId);
+                    runStateTracker.awaitTermination(stopTimeoutSeconds, TimeUnit.SECONDS, getLog());
+
+                    // Every run that was active has finished, so there is no need to list the runs again
+                    runJobNow(jobId);
+                    break;
+                }
+                case RUN_AND_WAIT: {
+                    awaitRun(jobId, startRun(jobId));
+                    break;
+                }
+                default: {
+                    throw new MojoExecutionException("this should not happen");
                 }
-            } catch (DatabricksRestException | IOException e) {
-                throw new MojoExecutionException(
-                    String.format("Could not control job: [%s] with command: [%s]", jobId, command.name()), e);
             }
-        } else {
-            getLog().error(String.format("No job id found for: [%s]", jobName));
+            return new JobResult(name, JobOutcome.SUCCEEDED, null);
+        } catch (DatabricksRestException | IOException | MojoExecutionException | IllegalStateException e) {
+            String message = String.format("Could not control job: [%s] with command: [%s]",
+                jobId == null ? name : jobId, command.name());
+            getLog().error(message, e);
+            return new JobResult(name, JobOutcome.FAILED, new MojoExecutionException(message, e));
         }
     }
 
@@ -135,6 +216,10 @@ public class JobMojo extends BaseDatabricksJobMojo {
             throw new MojoExecutionException(String.format("Job: [%s] already has an existing active run.", jobId));
         }
 
+        return runJobNow(jobId);
+    }
+
+    private RunNowDTO runJobNow(Long jobId) throws DatabricksRestException, IOException {
         RunNowDTO runNowDTO = getJobService().runJobNow(jobId);
         long numberInJob = runNowDTO.getNumberInJob();
 
@@ -143,16 +228,63 @@ public class JobMojo extends BaseDatabricksJobMojo {
         return runNowDTO;
     }
 
-    void stopActiveRuns(Long jobId) throws IOException, DatabricksRestException {
-        RunDTO[] runs = getRunDTOs(jobId);
-        for (RunDTO runDTO : runs) {
-            long runId = runDTO.getRunId();
-            long numberInJob = runDTO.getNumberInJob();
+    /**
+     * Waits for a run to finish, logging its state changes as they happen.
+     *
+     * @param jobId jobId
+     * @param runNowDTO the started run
+     * @return the finished run
+     * @throws MojoExecutionException if the run did not finish in time, or did not succeed.
+     *     A run that is no longer waited on is cancelled, so that it does not keep running unattended.
+     */
+    RunDTO awaitRun(Long jobId, RunNowDTO runNowDTO) throws MojoExecutionException {
+        String runUrl = String.format("https://%s/#job/%s/run/%s", host, jobId, runNowDTO.getNumberInJob());
+        RunDTO startedRun = new RunDTO();
+        startedRun.setRunId(runNowDTO.getRunId());
+        RunStateTracker runStateTracker = new RunStateTracker(getJobService(), startedRun);
 
-            getLog().info(String.format("Stopping run: https://%s/#job/%s/run/%s", host, jobId, numberInJob));
+        try {
+            runStateTracker.awaitTermination(runTimeoutSeconds, TimeUnit.SECONDS, RUN_MAX_POLL_MILLIS, getLog());
+        } catch (MojoExecutionException e) {
+            if (runStateTracker.hasActiveRuns()) {
+                try {
+                    getLog().warn(String.format("Cancelling run: %s", runUrl));
+                    runStateTracker.cancelAll();
+                } catch (MojoExecutionException cancelException) {
+                    getLog().error(String.format("Run: %s is still active, it could not be cancelled.", runUrl),
+                        cancelException);
+                    e.addSuppressed(cancelException);
+                }
+            }
+            throw e;
+        }
 
-            getJobService().cancelRun(runId);
+        RunDTO finishedRun = runStateTracker.getRun(runNowDTO.getRunId());
+        if (finishedRun.getState().getResultState() != RunResultStateDTO.SUCCESS) {
+            throw new MojoExecutionException(String.format("Run: %s finished with state: %s", runUrl,
+                RunStateTracker.describeState(finishedRun)));
         }
+        getLog().info(String.format("Run: %s succeeded.", runUrl));
+        return finishedRun;
+    }
+
+    /**
+     * Cancels all active runs of the job, without waiting for them to stop.
+     *
+     * @param jobId jobId
+     * @return a tracker of the cancelled runs
+     * @throws IOException exception
+     * @throws DatabricksRestException exception
+     * @throws MojoExecutionException if any run could not be cancelled
+     */
+    RunStateTracker stopActiveRuns(Long jobId) throws IOException, DatabricksRestException, MojoExecutionException {
+        RunStateTracker runStateTracker = new RunStateTracker(getJobService(), getRunDTOs(jobId));
+        for (RunDTO runDTO : runStateTracker.getActiveRuns()) {
+            getLog().info(String.format("Stopping run: https://%s/#job/%s/run/%s", host, jobId,
+                runDTO.getNumberInJob()));
+        }
+        runStateTracker.cancelAll();
+        return runStateTracker;
     }
 
     RunDTO[] getRunDTOs(Long jobId) throws DatabricksRestException, IOException {
@@ -167,11 +299,74 @@ public class JobMojo extends BaseDatabricksJobMojo {
         this.streamingOnly = streamingOnly;
     }
 
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setCommand(JobCommand command) {
+        this.command = command;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setStopTimeoutSeconds(int stopTimeoutSeconds) {
+        this.stopTimeoutSeconds = stopTimeoutSeconds;
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setRunTimeoutSeconds(int runTimeoutSeconds) {
+        this.runTimeoutSeconds = runTimeoutSeconds;
+    }
+
+    /**
+     * The outcome of a command on a single job.
+     */
+    enum JobOutcome {
+        SUCCEEDED, NOT_FOUND, FAILED
+    }
+
+    /**
+     * The result of a command on a single job.
+     */
+    static class JobResult {
+
+        private final String jobName;
+        private final JobOutcome outcome;
+        private final MojoExecutionException error;
+
+        JobResult(String jobName, JobOutcome outcome, MojoExecutionException error) {
+            this.jobName = jobName;
+            this.outcome = outcome;
+            this.error = error;
+        }
+
+        String getJobName() {
+            return jobName;
+        }
+
+        JobOutcome getOutcome() {
+            return outcome;
+        }
+
+        MojoExecutionException getError() {
+            return error;
+        }
+    }
+
     /**
      * Job command to execute.
      */
     public enum JobCommand {
-        START, STOP, RESTART
+        START, STOP, RESTART, RUN_AND_WAIT
     }
 
 }
@@ -0,0 +1,194 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.tools.databricks.maven.model.JobStats;
+import com.edmunds.tools.databricks.maven.util.ConcurrencyUtils;
+import com.edmunds.tools.databricks.maven.util.JobIndex;
+import com.edmunds.tools.databricks.maven.util.ObjectMapperUtils;
+import com.edmunds.tools.databricks.maven.util.RunStateTracker;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Reports run history statistics of jobs: setup and execution time percentiles, failure rate,
+ * and the execution time trend, to spot jobs whose runtime regressed after a deploy.
+ * <p>
+ * Jobs are taken from the job settings file, or are all jobs whose name starts with jobNamePrefix.
+ * </p>
+ */
+@Mojo(name = "job-stats", requiresProject = true)
+public class JobStatsMojo extends BaseDatabricksJobMojo {
+
+    static final int RUNS_PAGE_SIZE = 25;
+
+    /**
+     * Report on all jobs whose name starts with this prefix, instead of the jobs in the settings file.
+     */
+    @Parameter(property = "jobNamePrefix")
+    private String jobNamePrefix;
+
+    /**
+     * The maximum number of most recent runs read per job.
+     */
+    @Parameter(property = "stats.runLimit", defaultValue = "100")
+    private int runLimit = 100;
+
+    /**
+     * The number of recent successful runs compared against the same number of runs before them.
+     */
+    @Parameter(property = "stats.window", defaultValue = "10")
+    private int window = 10;
+
+    /**
+     * A job is reported as regressed when its recent median execution time exceeds
+     * the previous median by more than this factor.
+     */
+    @Parameter(property = "stats.regressionThreshold", defaultValue = "1.2")
+    private double regressionThreshold = 1.2;
+
+    /**
+     * The number of runs/list calls made at the same time.
+     */
+    @Parameter(property = "stats.threads", defaultValue = "10")
+    private int threads = 10;
+
+    /**
+     * Where to write the report as json.
+     */
+    @Parameter(property = "statsOutputFile",
+        defaultValue = "${project.build.directory}/databricks-plugin/job-stats.json")
+    private File statsOutputFile;
+
+    /**
+     * Where to write the report as csv.
+     */
+    @Parameter(property = "statsCsvOutputFile",
+        defaultValue = "${project.build.directory}/databricks-plugin/job-stats.csv")
+    private File statsCsvOutputFile;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<JobStats> report = createReport();
+
+        for (JobStats stats : report) {
+            String message = String.format("Job: [%s] runs: [%s] failure rate: [%.2f] canceled: [%s] "
+                    + "execution p50: [%s]ms p90: [%s]ms trend: [%s]", stats.getJobName(), stats.getRuns(),
+                stats.getFailureRate(), stats.getCanceled(), stats.getExecutionDuration().getP50(),
+                stats.getExecutionDuration().getP90(), stats.getTrendRatio());
+            if (stats.isRegressed()) {
+                getLog().warn(message + " REGRESSED");
+            } else {
+                getLog().info(message);
+            }
+        }
+
+        List<String> csv = new ArrayList<>();
+        csv.add(JobStats.CSV_HEADER);
+        report.forEach(stats -> csv.add(stats.toCsv()));
+        try {
+            FileUtils.writeStringToFile(statsOutputFile, ObjectMapperUtils.serialize(report), StandardCharsets.UTF_8);
+            FileUtils.writeLines(statsCsvOutputFile, StandardCharsets.UTF_8.name(), csv);
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        getLog().info(String.format("Job stats written to: [%s] and [%s]", statsOutputFile, statsCsvOutputFile));
+    }
+
+    List<JobStats> createReport() throws MojoExecutionException {
+        List<JobDTO> jobs = getJobs();
+
+        // Jobs are read concurrently, the pages of a job one after another until the runs run out
+        List<Callable<List<RunDTO>>> tasks = new ArrayList<>();
+        for (JobDTO job : jobs) {
+            tasks.add(() -> listRecentRuns(job.getJobId()));
+        }
+        List<List<RunDTO>> results = ConcurrencyUtils.invokeAll(tasks, threads, "list runs");
+
+        List<JobStats> report = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            List<RunDTO> completedRuns = results.get(i).stream()
+                .filter(RunStateTracker::isTerminal)
+                .collect(Collectors.toList());
+            JobDTO job = jobs.get(i);
+            report.add(JobStats.of(job.getSettings().getName(), job.getJobId(), completedRuns, window,
+                regressionThreshold));
+        }
+        return report;
+    }
+
+    /**
+     * Reads up to runLimit of the most recent runs of a job. Paging stops at the first page that is
+     * shorter than requested, so a job with few runs costs a single call.
+     *
+     * @param jobId jobId
+     * @return runs, most recent first
+     * @throws DatabricksRestException exception
+     * @throws IOException exception
+     */
+    List<RunDTO> listRecentRuns(long jobId) throws DatabricksRestException, IOException {
+        List<RunDTO> runs = new ArrayList<>();
+        for (int offset = 0; offset < runLimit; offset += RUNS_PAGE_SIZE) {
+            int limit = Math.min(RUNS_PAGE_SIZE, runLimit - offset);
+            RunDTO[] page = ObjectUtils.defaultIfNull(getJobService().listRuns(jobId, false, offset, limit).getRuns(),
+                new RunDTO[]{});
+            runs.addAll(Arrays.asList(page));
+            if (page.length < limit) {
+                break;
+            }
+        }
+        return runs;
+    }
+
+    private List<JobDTO> getJobs() throws MojoExecutionException {
+        Predicate<String> nameFilter;
+        if (StringUtils.isNotBlank(jobNamePrefix)) {
+            nameFilter = name -> name != null && name.startsWith(jobNamePrefix);
+        } else {
+            Set<String> jobNames = new HashSet<>();
+            getSettingsUtils().forEachSettingsDTOWithDefaults(settingsDTO -> jobNames.add(settingsDTO.getName()));
+            nameFilter = jobNames::contains;
+        }
+        JobIndex jobIndex = loadJobIndex(nameFilter);
+        return jobIndex.getAllJobs();
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setJobNamePrefix(String jobNamePrefix) {
+        this.jobNamePrefix = jobNamePrefix;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
+
+import com.edmunds.rest.databricks.DTO.UpsertClusterDTO;
+import com.edmunds.rest.databricks.DTO.clusters.ClusterInfoDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.rest.databricks.DTO.libraries.ClusterLibraryStatusesDTO;
+import com.edmunds.rest.databricks.DTO.libraries.LibraryFullStatusDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan.ActionType;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan.ResourceType;
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
+import com.edmunds.tools.databricks.maven.util.JobIndex;
+import com.edmunds.tools.databricks.maven.util.ObjectMapperUtils;
+import com.edmunds.tools.databricks.maven.util.SettingsDiffUtils;
+import com.edmunds.tools.databricks.maven.util.SettingsUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Computes what upsert-job and upsert-cluster would do, without doing it.
+ * All job and cluster settings are rendered, a single snapshot of remote jobs, clusters and libraries is taken
+ * (three list calls, regardless of the number of jobs) and every resource is classified as
+ * CREATE, UPDATE, REMOVE or NO_OP. The plan is logged as text and written as json, so it can be reviewed in CI.
+ * <p>
+ * Jobs and clusters are never deleted by this plugin. Those that are named after this project
+ * (groupId/artifactId/...) but are no longer in the settings files are reported as ORPHAN, for information only.
+ * REMOVE is only reported for libraries, which upsert-cluster uninstalls when they are not in artifact_paths.
+ * </p>
+ */
+@Mojo(name = "plan", requiresProject = true)
+public class PlanMojo extends BaseDatabricksSettingsMojo {
+
+    private static final String ARTIFACT_PATHS = "artifact_paths";
+    private static final String JAR = ".jar";
+
+    /**
+     * Where to write the plan as json.
+     */
+    @Parameter(property = "planOutputFile",
+        defaultValue = "${project.build.directory}/databricks-plugin/plan.json")
+    private File planOutputFile;
+
+    /**
+     * Where to write the plan as human readable text.
+     */
+    @Parameter(property = "planTextOutputFile",
+        defaultValue = "${project.build.directory}/databricks-plugin/plan.txt")
+    private File planTextOutputFile;
+
+    private SettingsUtils<UpsertClusterDTO> clusterSettingsUtils;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        DeploymentPlan plan = createPlan();
+
+        String planText = plan.toText();
+        getLog().info(String.format("Deployment plan:%n%s", planText));
+        try {
+            FileUtils.writeStringToFile(planTextOutputFile, planText, StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(planOutputFile, ObjectMapperUtils.serialize(plan), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        getLog().info(String.format("Plan written to: [%s] and [%s]", planOutputFile, planTextOutputFile));
+    }
+
+    DeploymentPlan createPlan() throws MojoExecutionException {
+        List<JobSettingsDTO> jobSettingsDTOs = getSettingsUtils().buildSettingsDTOsWithDefaults();
+        List<UpsertClusterDTO> clusterDTOs = getClusterSettingsUtils().buildSettingsDTOsWithDefaults();
+        EnvironmentDTO environmentDTO = getEnvironmentDTOSupplier().get();
+        String projectPrefix = environmentDTO.getGroupWithoutCompany() + "/" + environmentDTO.getArtifactId();
+
+        DeploymentPlan plan = new DeploymentPlan();
+        Set<String> jobNames = jobSettingsDTOs.stream().map(JobSettingsDTO::getName).collect(Collectors.toSet());
+        JobIndex jobIndex = loadJobIndex(name -> jobNames.contains(name) || isOwnedByProject(name, projectPrefix));
+        planJobs(plan, jobSettingsDTOs, jobIndex, projectPrefix);
+        if (!clusterDTOs.isEmpty()) {
+            planClusters(plan, clusterDTOs, projectPrefix);
+        }
+        return plan;
+    }
+
+    private void planJobs(DeploymentPlan plan, List<JobSettingsDTO> jobSettingsDTOs, JobIndex jobIndex,
+        String projectPrefix) {
+        Set<String> desiredNames = new HashSet<>();
+        for (JobSettingsDTO settingsDTO : jobSettingsDTOs) {
+            desiredNames.add(settingsDTO.getName());
+            List<JobDTO> liveJobs = jobIndex.getJobs(settingsDTO.getName());
+            if (liveJobs.isEmpty()) {
+                plan.add(ResourceType.JOB, ActionType.CREATE, settingsDTO.getName(), null, null);
+                continue;
+            }
+            JobDTO liveJob = liveJobs.get(0);
+            String detail = liveJobs.size() > 1
+                ? String.format("%s jobs share this name, only the first is updated", liveJobs.size()) : null;
+            ActionType actionType = SettingsDiffUtils.isEquivalent(settingsDTO, liveJob.getSettings())
+                ? ActionType.NO_OP : ActionType.UPDATE;
+            plan.add(ResourceType.JOB, actionType, settingsDTO.getName(), String.valueOf(liveJob.getJobId()), detail);
+        }
+
+        for (JobDTO liveJob : jobIndex.getAllJobs()) {
+            String name = liveJob.getSettings().getName();
+            if (isOwnedByProject(name, projectPrefix) && !desiredNames.contains(name)) {
+                plan.add(ResourceType.JOB, ActionType.ORPHAN, name, String.valueOf(liveJob.getJobId()),
+                    "no longer in the job settings, not deleted");
+            }
+        }
+    }
+
+    private void planClusters(DeploymentPlan plan, List<UpsertClusterDTO> clusterDTOs, String projectPrefix)
+        throws MojoExecutionException {
+        ClusterInfoDTO[] liveClusters;
+        ClusterLibraryStatusesDTO[] libraryStatuses;
+        try {
+            liveClusters = defaultIfNull(getDatabricksServiceFactory().getClusterService().list(),
+                new ClusterInfoDTO[]{});
+            libraryStatuses = defaultIfNull(getDatabricksServiceFactory().getLibraryService().allClusterStatuses(),
+                new ClusterLibraryStatusesDTO[]{});
+        } catch (DatabricksRestException | IOException e) {
+            throw new MojoExecutionException("Could not list clusters.", e);
+        }
+
+        Map<String, ClusterInfoDTO> liveClustersByName = new HashMap<>();
+        for (ClusterInfoDTO liveCluster : liveClusters) {
+            liveClustersByName.putIfAbsent(liveCluster.getClusterName(), liveCluster);
+        }
+        Map<String, Set<String>> librariesByClusterId = new HashMap<>();
+        for (ClusterLibraryStatusesDTO statuses : libraryStatuses) {
+            librariesByClusterId.put(statuses.getClusterId(), getClusterJars(statuses));
+        }
+
+        Set<String> desiredNames = new HashSet<>();
+        for (UpsertClusterDTO clusterDTO : clusterDTOs) {
+            String name = clusterDTO.getClusterName();
+            desiredNames.add(name);
+            ClusterInfoDTO liveCluster = liveClustersByName.get(name);
+            Collection<String> artifactPaths = defaultIfNull(clusterDTO.getArtifactPaths(), Collections.emptyList());
+            if (liveCluster == null) {
+                plan.add(ResourceType.CLUSTER, ActionType.CREATE, name, null, null);
+                planLibraries(plan, name, null, artifactPaths, Collections.emptySet());
+                continue;
+            }
+
+            String clusterId = liveCluster.getClusterId();
+            // artifact_paths is a plugin concept, the libraries are compared separately
+            JsonNode desired = SettingsDiffUtils.normalize(clusterDTO);
+            if (desired != null && desired.isObject()) {
+                ((ObjectNode) desired).remove(ARTIFACT_PATHS);
+            }
+            ActionType actionType = SettingsDiffUtils.isSubsetOf(desired, SettingsDiffUtils.normalize(liveCluster))
+                ? ActionType.NO_OP : ActionType.UPDATE;
+            plan.add(ResourceType.CLUSTER, actionType, name, clusterId, null);
+            planLibraries(plan, name, clusterId, artifactPaths,
+                librariesByClusterId.getOrDefault(clusterId, Collections.emptySet()));
+        }
+
+        for (ClusterInfoDTO liveCluster : liveClusters) {
+            String name = liveCluster.getClusterName();
+            if (isOwnedByProject(name, projectPrefix) && !desiredNames.contains(name)) {
+                plan.add(ResourceType.CLUSTER, ActionType.ORPHAN, name, liveCluster.getClusterId(),
+                    "no longer in the cluster settings, not deleted");
+            }
+        }
+    }
+
+    /**
+     * Mirrors the library handling of upsert-cluster: only jars are installed, and libraries that are installed
+     * on the cluster but not in artifact_paths are removed.
+     */
+    private void planLibraries(DeploymentPlan plan, String clusterName, String clusterId,
+        Collection<String> artifactPaths, Set<String> installedJars) {
+        for (String artifactPath : artifactPaths) {
+            if (!artifactPath.endsWith(JAR)) {
+                continue;
+            }
+            ActionType actionType = installedJars.contains(artifactPath) ? ActionType.NO_OP : ActionType.CREATE;
+            plan.add(ResourceType.LIBRARY, actionType, artifactPath, clusterId, "on cluster " + clusterName);
+        }
+        for (String installedJar : installedJars) {
+            if (!artifactPaths.contains(installedJar)) {
+                plan.add(ResourceType.LIBRARY, ActionType.REMOVE, installedJar, clusterId,
+                    "on cluster " + clusterName);
+            }
+        }
+    }
+
+    private Set<String> getClusterJars(ClusterLibraryStatusesDTO statuses) {
+        LibraryFullStatusDTO[] fullStatuses = defaultIfNull(statuses.getLibraryFullStatuses(),
+            new LibraryFullStatusDTO[]{});
+        Set<String> jars = new HashSet<>();
+        for (LibraryFullStatusDTO fullStatus : fullStatuses) {
+            // skip all clusters libraries, they are not managed per cluster
+            if (!fullStatus.isLibraryForAllClusters() && fullStatus.getLibrary() != null
+                && fullStatus.getLibrary().getJar() != null) {
+                jars.add(fullStatus.getLibrary().getJar());
+            }
+        }
+        return jars;
+    }
+
+    private boolean isOwnedByProject(String name, String projectPrefix) {
+        return name != null && (name.equals(projectPrefix) || name.startsWith(projectPrefix + "/"));
+    }
+
+    SettingsUtils<UpsertClusterDTO> getClusterSettingsUtils() throws MojoExecutionException {
+        if (clusterSettingsUtils == null) {
+            clusterSettingsUtils = new SettingsUtils<>(
+                UpsertClusterDTO[].class, "/default-cluster.json", dbClusterFile,
+                getEnvironmentDTOSupplier(), new BaseDatabricksUpsertClusterMojoSettingsInitializer(validate,
+                    new DefaultsReport(getLog(), defaultsReport, "clusters")), getSettingsCacheDirectory());
+        }
+        return clusterSettingsUtils;
+    }
+}
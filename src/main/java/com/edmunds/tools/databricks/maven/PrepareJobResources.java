@@ -16,11 +16,22 @@
 
 package com.edmunds.tools.databricks.maven;
 
-import com.edmunds.tools.databricks.maven.util.ObjectMapperUtils;
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.PropertyReferences;
+import com.edmunds.tools.databricks.maven.util.SettingsUtils;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -28,9 +39,14 @@ import org.apache.maven.plugins.annotations.Parameter;
 
 /**
  * Serialize project and system properties as an EnvironmentDTO to a environment.json file.
+ * <p>
+ * Only the properties the job and cluster settings templates refer to are written, which keeps the file small
+ * and free of unrelated build machine properties. If a template uses the properties in a way that can not be
+ * detected (a computed name, an included template), all of them are written.
+ * </p>
  */
 @Mojo(name = "prepare-job-resources", requiresProject = true, defaultPhase = LifecyclePhase.PREPARE_PACKAGE)
-public class PrepareJobResources extends BaseDatabricksJobMojo {
+public class PrepareJobResources extends BaseDatabricksSettingsMojo {
 
     private static final String ENVIRONMENT_FILE_NAME = "environment.json";
 
@@ -41,17 +57,83 @@ public class PrepareJobResources extends BaseDatabricksJobMojo {
         defaultValue = "${project.build.directory}/databricks-plugin/" + ENVIRONMENT_FILE_NAME)
     protected File environmentDTOFileOutput;
 
+    /**
+     * Project and system properties that are always written, in addition to the detected ones.
+     */
+    @Parameter(property = "environmentProperties")
+    protected List<String> environmentProperties;
+
+    /**
+     * If true, the properties referenced by the settings templates are detected and only those (and
+     * environmentProperties) are written. If false, only environmentProperties are written, or all properties
+     * when environmentProperties is not set.
+     */
+    @Parameter(property = "environmentPropertiesAutoDetect", defaultValue = "true")
+    protected boolean environmentPropertiesAutoDetect = true;
+
     @Override
     public void execute() throws MojoExecutionException {
         prepareEnvironmentDTO();
     }
 
     void prepareEnvironmentDTO() throws MojoExecutionException {
+        EnvironmentDTO environmentDTO = getEnvironmentDTOSupplier().get();
         try {
-            FileUtils.writeStringToFile(environmentDTOFileOutput,
-                ObjectMapperUtils.serialize(getEnvironmentDTOSupplier().get()), StandardCharsets.UTF_8);
+            EnvironmentDTO retained = retainProperties(environmentDTO);
+            FileUtils.writeStringToFile(environmentDTOFileOutput, OBJECT_MAPPER.writeValueAsString(retained),
+                StandardCharsets.UTF_8);
+            getLog().info(String.format("Wrote [%s] of [%s] project properties and [%s] of [%s] system properties "
+                    + "to: [%s]", size(retained.getProjectProperties()), size(environmentDTO.getProjectProperties()),
+                size(retained.getSystemProperties()), size(environmentDTO.getSystemProperties()),
+                environmentDTOFileOutput));
         } catch (IOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
     }
+
+    private EnvironmentDTO retainProperties(EnvironmentDTO environmentDTO) throws IOException {
+        Set<String> projectPropertyNames = null;
+        Set<String> systemPropertyNames = null;
+        if (environmentPropertiesAutoDetect) {
+            PropertyReferences references = PropertyReferences.scan(readTemplateSources());
+            projectPropertyNames = references.getProjectProperties();
+            systemPropertyNames = references.getSystemProperties();
+        } else if (environmentProperties != null && !environmentProperties.isEmpty()) {
+            projectPropertyNames = new HashSet<>();
+            systemPropertyNames = new HashSet<>();
+        }
+        if (environmentProperties != null) {
+            if (projectPropertyNames != null) {
+                projectPropertyNames.addAll(environmentProperties);
+            }
+            if (systemPropertyNames != null) {
+                systemPropertyNames.addAll(environmentProperties);
+            }
+        }
+        return environmentDTO.retainProperties(projectPropertyNames, systemPropertyNames);
+    }
+
+    private List<String> readTemplateSources() throws IOException {
+        List<String> sources = new ArrayList<>();
+        for (String defaultSettings : new String[]{"/default-job.json", "/default-cluster.json"}) {
+            try (InputStream inputStream = getClass().getResourceAsStream(defaultSettings)) {
+                if (inputStream != null) {
+                    sources.add(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        for (File settingsPath : new File[]{getDbJobFile(), dbClusterFile}) {
+            if (settingsPath == null) {
+                continue;
+            }
+            for (File settingsFile : SettingsUtils.resolveSettingsFiles(settingsPath)) {
+                sources.add(FileUtils.readFileToString(settingsFile, StandardCharsets.UTF_8));
+            }
+        }
+        return sources;
+    }
+
+    private static int size(Properties properties) {
+        return properties == null ? 0 : properties.size();
+    }
 }
@@ -16,8 +16,11 @@
 
 package com.edmunds.tools.databricks.maven;
 
+import com.edmunds.tools.databricks.maven.util.NotebookTree;
 import java.io.IOException;
-import org.apache.commons.io.FileUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -46,11 +49,19 @@ public class PrepareWorkspaceResources extends BaseWorkspaceMojo {
                 + sourceWorkspacePath.getPath() + "]");
             return;
         }
-        validateNotebooks(sourceWorkspacePath);
+        NotebookTree notebookTree = getNotebookTree(sourceWorkspacePath);
+        validateNotebooks(notebookTree);
         try {
             getLog().info(String.format("Copying notebooks at: [%s] to [%s]", sourceWorkspacePath,
                 packagedWorkspacePath.toString()));
-            FileUtils.copyDirectory(sourceWorkspacePath, packagedWorkspacePath);
+            // The files were already listed while building the tree
+            Path target = packagedWorkspacePath.toPath();
+            for (Path file : notebookTree.getFiles()) {
+                Path targetFile = target.resolve(file.toString());
+                Files.createDirectories(targetFile.getParent());
+                Files.copy(notebookTree.getRoot().resolve(file), targetFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.COPY_ATTRIBUTES);
+            }
         } catch (IOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
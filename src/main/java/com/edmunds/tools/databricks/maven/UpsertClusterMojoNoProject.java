@@ -1,6 +1,6 @@
 package com.edmunds.tools.databricks.maven;
 
-import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.edmunds.tools.databricks.maven.util.EnvironmentDTOLoader;
 import com.edmunds.tools.databricks.maven.util.EnvironmentDTOSupplier;
 import java.io.File;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -22,15 +22,7 @@ public class UpsertClusterMojoNoProject extends UpsertClusterMojo {
 
     @Override
     protected EnvironmentDTOSupplier getEnvironmentDTOSupplier() {
-        return () -> {
-            EnvironmentDTO serializedEnvironment = EnvironmentDTO.loadEnvironmentDTOFromFile(environmentDTOFile);
-            //We now set properties that are based on runtime and not buildtime. Ideally this would be enforced.
-            //I consider this code ugly
-            if (environment != null) {
-                serializedEnvironment.setEnvironment(environment);
-            }
-            return serializedEnvironment;
-        };
+        return () -> EnvironmentDTOLoader.load(environmentDTOFile, environment);
     }
 
 }
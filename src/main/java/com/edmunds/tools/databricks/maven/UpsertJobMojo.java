@@ -21,10 +21,13 @@ import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_M
 import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
 import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.tools.databricks.maven.util.JobIndex;
+import com.edmunds.tools.databricks.maven.util.SettingsDiffUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.IOException;
 import java.util.List;
-
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -33,6 +36,7 @@ import org.apache.maven.plugins.annotations.Mojo;
  * Upserts databricks jobs with the given name based on the artifacts job settings json file.
  * This file should be in the resources directory named ${artifactId}-job-settings.json and
  * should be a serialized form of an array of type JobSettingsDTO.
+ * Jobs whose live settings already match the rendered settings are not written.
  * NOTE: If a job does not have a unique name, it will fail unless failOnDuplicateJobName=false,
  * in which case only the first one will be updated.
  */
@@ -46,22 +50,40 @@ public class UpsertJobMojo extends BaseDatabricksJobMojo {
 
     private void upsertJobSettings() throws MojoExecutionException {
         List<JobSettingsDTO> jobSettingsDTOS = getSettingsUtils().buildSettingsDTOsWithDefaults();
+        // The index is only loaded once there is at least one job to upsert
+        JobIndex jobIndex = null;
+        int created = 0;
+        int updated = 0;
+        int unchanged = 0;
         for (JobSettingsDTO settingsDTO : jobSettingsDTOS) {
             if (StringUtils.isNotBlank(singleJob) && !settingsDTO.getName().equals(singleJob)) {
                 getLog().info("The job is skipped: " + settingsDTO.getName());
                 continue;
             }
+            if (jobIndex == null) {
+                Set<String> jobNames = jobSettingsDTOS.stream().map(JobSettingsDTO::getName)
+                    .collect(Collectors.toSet());
+                jobIndex = loadJobIndex(jobNames::contains);
+            }
 
-            getLog().info("The job is to be upserted: " + settingsDTO.getName());
             try {
-                getJobService().upsertJob(settingsDTO, failOnDuplicateJobName);
-                JobDTO job = getJobService().getJobByName(settingsDTO.getName(), failOnDuplicateJobName);
-                if (job == null) {
-                    throw new MojoExecutionException("Error creating the job... It can't be found!");
+                JobDTO existingJob = jobIndex.getJob(settingsDTO.getName(), failOnDuplicateJobName);
+                if (existingJob == null) {
+                    getLog().info("The job is to be created: " + settingsDTO.getName());
+                    long jobId = getJobService().createJob(settingsDTO);
+                    getLog().info("Created Job at: " + getJobService().getJobLink(jobId));
+                    created++;
+                } else if (SettingsDiffUtils.isEquivalent(settingsDTO, existingJob.getSettings())) {
+                    getLog().info("The job is unchanged: " + settingsDTO.getName() + " at: "
+                        + getJobService().getJobLink(existingJob.getJobId()));
+                    unchanged++;
                 } else {
-                    getLog().info("Updated/Created Job at: " + getJobService().getJobLink(job.getJobId()));
+                    getLog().info("The job is to be updated: " + settingsDTO.getName());
+                    getJobService().reset(existingJob.getJobId(), settingsDTO);
+                    getLog().info("Updated Job at: " + getJobService().getJobLink(existingJob.getJobId()));
+                    updated++;
                 }
-            } catch (DatabricksRestException | IOException e) {
+            } catch (DatabricksRestException | IOException | IllegalStateException e) {
                 String jobJson = null;
                 try {
                     jobJson = OBJECT_MAPPER.writeValueAsString(jobSettingsDTOS);
@@ -72,5 +94,7 @@ public class UpsertJobMojo extends BaseDatabricksJobMojo {
                     settingsDTO.getName(), jobJson), e);
             }
         }
+        getLog().info(String.format("Jobs created: [%s], updated: [%s], unchanged: [%s]", created, updated,
+            unchanged));
     }
 }
@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import com.edmunds.rest.databricks.DTO.UpsertClusterDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.tools.databricks.maven.util.ConcurrencyUtils;
+import com.edmunds.tools.databricks.maven.util.DefaultsReport;
+import com.edmunds.tools.databricks.maven.util.EnvironmentDTOSupplier;
+import com.edmunds.tools.databricks.maven.util.SettingsUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Renders and validates the job and cluster settings for every configured environment, so that a template error
+ * in a branch for one environment is found before deploying to it.
+ * <p>
+ * All environments are rendered concurrently and share the compiled templates. Nothing is sent to databricks,
+ * so the goal runs offline. All failures are reported together.
+ * </p>
+ */
+@Mojo(name = "validate-settings", requiresProject = true, defaultPhase = LifecyclePhase.VERIFY)
+public class ValidateSettingsMojo extends BaseDatabricksSettingsMojo {
+
+    /**
+     * The environments to validate, e.g. QA,PROD. Defaults to the environment property.
+     */
+    @Parameter(property = "validateEnvironments")
+    private List<String> validateEnvironments;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        List<String> environments = getEnvironments();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (String environmentName : environments) {
+            EnvironmentDTOSupplier environmentDTOSupplier = () -> createEnvironmentDTO(environmentName);
+            tasks.add(() -> validateSettings(environmentName, "job", () -> new SettingsUtils<>(
+                JobSettingsDTO[].class, "/default-job.json", getDbJobFile(), environmentDTOSupplier,
+                new BaseDatabricksJobMojoSettingsInitializer(true, prefixToStrip,
+                    new DefaultsReport(getLog(), null, "jobs")), getSettingsCacheDirectory())));
+            tasks.add(() -> validateSettings(environmentName, "cluster", () -> new SettingsUtils<>(
+                UpsertClusterDTO[].class, "/default-cluster.json", dbClusterFile, environmentDTOSupplier,
+                new BaseDatabricksUpsertClusterMojoSettingsInitializer(true,
+                    new DefaultsReport(getLog(), null, "clusters")), getSettingsCacheDirectory())));
+        }
+
+        List<Integer> counts;
+        try {
+            counts = ConcurrencyUtils.invokeAll(tasks, tasks.size(), "validate settings");
+        } catch (MojoExecutionException e) {
+            // Every failure is listed, not just the first
+            getLog().error(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            for (Throwable suppressed : e.getSuppressed()) {
+                getLog().error(suppressed.getMessage());
+            }
+            // One task per environment and settings type, e.g. QA job settings
+            throw new MojoExecutionException(String.format(
+                "Settings validation failed in [%s] of [%s] environment/settings combinations",
+                e.getSuppressed().length + 1, tasks.size()), e);
+        }
+        getLog().info(String.format("Validated [%s] settings for environments: %s",
+            counts.stream().mapToInt(Integer::intValue).sum(), environments));
+    }
+
+    List<String> getEnvironments() throws MojoExecutionException {
+        if (validateEnvironments != null && !validateEnvironments.isEmpty()) {
+            return validateEnvironments;
+        }
+        if (StringUtils.isBlank(environment)) {
+            throw new MojoExecutionException("validateEnvironments or environment property is missing");
+        }
+        return Collections.singletonList(environment);
+    }
+
+    private int validateSettings(String environmentName, String kind, SettingsUtilsFactory<?> settingsUtilsFactory)
+        throws MojoExecutionException {
+        AtomicInteger count = new AtomicInteger();
+        try {
+            // Only counted, so the settings are not collected
+            settingsUtilsFactory.create().forEachSettingsDTOWithDefaults(settingsDTO -> count.incrementAndGet());
+            return count.get();
+        } catch (MojoExecutionException e) {
+            throw new MojoExecutionException(String.format("[%s] %s settings: %s", environmentName, kind,
+                e.getMessage()), e);
+        }
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    void setValidateEnvironments(List<String> validateEnvironments) {
+        this.validateEnvironments = validateEnvironments;
+    }
+
+    @FunctionalInterface
+    private interface SettingsUtilsFactory<S> {
+
+        SettingsUtils<S> create() throws MojoExecutionException;
+    }
+}
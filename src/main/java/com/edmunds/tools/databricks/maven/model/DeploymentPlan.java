@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of actions a deployment would take against a databricks workspace, without executing any of them.
+ */
+public class DeploymentPlan {
+
+    private final List<PlanAction> actions = new ArrayList<>();
+
+    public void add(ResourceType resourceType, ActionType actionType, String name, String id, String detail) {
+        actions.add(new PlanAction(resourceType, actionType, name, id, detail));
+    }
+
+    public List<PlanAction> getActions() {
+        return actions;
+    }
+
+    /**
+     * Number of actions per action type, e.g. how many creates, updates, no-ops and orphans.
+     *
+     * @return counts per action type
+     */
+    public Map<ActionType, Integer> getCounts() {
+        Map<ActionType, Integer> counts = new EnumMap<>(ActionType.class);
+        for (ActionType actionType : ActionType.values()) {
+            counts.put(actionType, 0);
+        }
+        for (PlanAction action : actions) {
+            counts.merge(action.getAction(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Whether applying this plan would change anything.
+     *
+     * @return true if there is at least one CREATE, UPDATE or REMOVE
+     */
+    public boolean hasChanges() {
+        return actions.stream().anyMatch(action -> action.getAction().isChange());
+    }
+
+    /**
+     * Renders the plan as human readable text, one action per line.
+     *
+     * @return the plan as text
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (PlanAction action : actions) {
+            sb.append(String.format("%-7s %-8s %s", action.getAction(), action.getResourceType(), action.getName()));
+            if (action.getId() != null) {
+                sb.append(String.format(" [%s]", action.getId()));
+            }
+            if (action.getDetail() != null) {
+                sb.append(String.format(" - %s", action.getDetail()));
+            }
+            sb.append(System.lineSeparator());
+        }
+        Map<ActionType, Integer> counts = getCounts();
+        sb.append(String.format("Plan: %s to create, %s to update, %s to remove, %s unchanged, %s orphaned.",
+            counts.get(ActionType.CREATE), counts.get(ActionType.UPDATE), counts.get(ActionType.REMOVE),
+            counts.get(ActionType.NO_OP), counts.get(ActionType.ORPHAN)));
+        return sb.toString();
+    }
+
+    /**
+     * A single planned action.
+     */
+    public static class PlanAction {
+
+        private final ResourceType resourceType;
+        private final ActionType action;
+        private final String name;
+        private final String id;
+        private final String detail;
+
+        PlanAction(ResourceType resourceType, ActionType action, String name, String id, String detail) {
+            this.resourceType = resourceType;
+            this.action = action;
+            this.name = name;
+            this.id = id;
+            this.detail = detail;
+        }
+
+        public ResourceType getResourceType() {
+            return resourceType;
+        }
+
+        public ActionType getAction() {
+            return action;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+
+    /**
+     * The kinds of resources a plan covers.
+     */
+    public enum ResourceType {
+        JOB, CLUSTER, LIBRARY
+    }
+
+    /**
+     * The kinds of actions a plan can contain.
+     * <p>
+     * REMOVE is a library that upsert-cluster uninstalls. ORPHAN is informational only: a job or cluster named
+     * after the project that is no longer in the settings, which upsert-job and upsert-cluster leave in place.
+     * </p>
+     */
+    public enum ActionType {
+        CREATE(true), UPDATE(true), REMOVE(true), NO_OP(false), ORPHAN(false);
+
+        private final boolean change;
+
+        ActionType(boolean change) {
+            this.change = change;
+        }
+
+        /**
+         * Whether applying the action changes the workspace.
+         *
+         * @return true for CREATE, UPDATE and REMOVE
+         */
+        public boolean isChange() {
+            return change;
+        }
+    }
+}
@@ -18,12 +18,12 @@ package com.edmunds.tools.databricks.maven.model;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
 
+import com.edmunds.tools.databricks.maven.util.NameNormalizer;
 import com.edmunds.tools.databricks.maven.util.ObjectMapperUtils;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Properties;
-import org.apache.commons.io.FileUtils;
+import java.util.Set;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
@@ -80,7 +80,7 @@ public class EnvironmentDTO {
     }
 
     public static String stripCompanyPackage(String prefixToStrip, String path) {
-        return path.replaceAll(prefixToStrip, "");
+        return NameNormalizer.stripPrefix(prefixToStrip, path);
     }
 
     /**
@@ -95,13 +95,68 @@ public class EnvironmentDTO {
             throw new MojoExecutionException("environmentDTOFile must be set!");
         }
         try {
-            String environmentDTOJson = FileUtils.readFileToString(environmentDTOFile, StandardCharsets.UTF_8);
-            return ObjectMapperUtils.deserialize(environmentDTOJson, EnvironmentDTO.class);
+            return ObjectMapperUtils.deserialize(environmentDTOFile, EnvironmentDTO.class);
         } catch (IOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
     }
 
+    /**
+     * A copy that only keeps the given properties. The properties of this DTO are left as they are.
+     *
+     * @param projectPropertyNames the project properties to keep, null keeps all of them
+     * @param systemPropertyNames the system properties to keep, null keeps all of them
+     * @return the copy
+     */
+    public EnvironmentDTO retainProperties(Set<String> projectPropertyNames, Set<String> systemPropertyNames) {
+        EnvironmentDTO copy = copy();
+        copy.projectProperties = retain(projectProperties, projectPropertyNames);
+        copy.systemProperties = retain(systemProperties, systemPropertyNames);
+        return copy;
+    }
+
+    /**
+     * A copy for another environment. The copy shares the properties of this DTO, which must not be modified.
+     *
+     * @param environment the environment, null keeps the environment of this DTO
+     * @return the copy
+     */
+    public EnvironmentDTO withEnvironment(String environment) {
+        EnvironmentDTO copy = copy();
+        if (environment != null) {
+            copy.environment = environment;
+        }
+        return copy;
+    }
+
+    private EnvironmentDTO copy() {
+        EnvironmentDTO copy = new EnvironmentDTO();
+        copy.projectProperties = projectProperties;
+        copy.systemProperties = systemProperties;
+        copy.groupId = groupId;
+        copy.artifactId = artifactId;
+        copy.version = version;
+        copy.environment = environment;
+        copy.groupWithoutCompany = groupWithoutCompany;
+        copy.databricksRepo = databricksRepo;
+        copy.databricksRepoKey = databricksRepoKey;
+        return copy;
+    }
+
+    private static Properties retain(Properties properties, Set<String> names) {
+        if (properties == null || names == null) {
+            return properties;
+        }
+        Properties retained = new Properties();
+        for (String name : names) {
+            String value = properties.getProperty(name);
+            if (value != null) {
+                retained.setProperty(name, value);
+            }
+        }
+        return retained;
+    }
+
     public Properties getProjectProperties() {
         return projectProperties;
     }
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.model;
+
+import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunLifeCycleStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunResultStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunStateDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Run history statistics of a single job, computed from its completed runs.
+ * Durations are in milliseconds and only taken from successful runs, so failures do not skew them.
+ * <p>
+ * Cancelled runs, e.g. the streaming runs a RESTART stops, and skipped runs are not failures. The failure rate is
+ * taken over the runs that succeeded or failed, cancelled runs are counted separately.
+ * </p>
+ */
+public class JobStats {
+
+    public static final String CSV_HEADER = "job_name,job_id,runs,failure_rate,canceled,"
+        + "setup_p50,setup_p90,setup_p99,execution_p50,execution_p90,execution_p99,trend_ratio,regressed";
+
+    private static final Set<RunResultStateDTO> FAILED_RESULT_STATES =
+        EnumSet.of(RunResultStateDTO.FAILED, RunResultStateDTO.TIMEDOUT);
+
+    private String jobName;
+    private long jobId;
+    private int runs;
+    private double failureRate;
+    private int canceled;
+    private Percentiles setupDuration;
+    private Percentiles executionDuration;
+    private Double trendRatio;
+    private boolean regressed;
+
+    /**
+     * Don't use this - it's for jackson deserialization only.
+     */
+    public JobStats() {
+    }
+
+    /**
+     * Computes the statistics of a job.
+     *
+     * @param jobName jobName
+     * @param jobId jobId
+     * @param completedRuns completed runs, most recent first
+     * @param window the number of recent successful runs compared against the window before them
+     * @param regressionThreshold the trend ratio above which the job is considered regressed
+     * @return the statistics
+     */
+    public static JobStats of(String jobName, long jobId, List<RunDTO> completedRuns, int window,
+        double regressionThreshold) {
+        JobStats stats = new JobStats();
+        stats.jobName = jobName;
+        stats.jobId = jobId;
+        stats.runs = completedRuns.size();
+
+        List<RunDTO> successfulRuns = completedRuns.stream()
+            .filter(run -> run.getState() != null && run.getState().getResultState() == RunResultStateDTO.SUCCESS)
+            .collect(Collectors.toList());
+        long failed = completedRuns.stream().filter(JobStats::isFailed).count();
+        stats.failureRate = failed == 0 ? 0 : (double) failed / (successfulRuns.size() + failed);
+        stats.canceled = (int) completedRuns.stream()
+            .filter(run -> run.getState() != null && run.getState().getResultState() == RunResultStateDTO.CANCELED)
+            .count();
+
+        stats.setupDuration = Percentiles.of(
+            successfulRuns.stream().map(RunDTO::getSetupDuration).collect(Collectors.toList()));
+        List<Long> executionDurations = successfulRuns.stream().map(RunDTO::getExecutionDuration)
+            .collect(Collectors.toList());
+        stats.executionDuration = Percentiles.of(executionDurations);
+
+        if (window > 0 && executionDurations.size() >= window * 2) {
+            long recent = Percentiles.percentile(executionDurations.subList(0, window), 50);
+            long baseline = Percentiles.percentile(executionDurations.subList(window, window * 2), 50);
+            if (baseline > 0) {
+                stats.trendRatio = (double) recent / baseline;
+                stats.regressed = stats.trendRatio > regressionThreshold;
+            }
+        }
+        return stats;
+    }
+
+    private static boolean isFailed(RunDTO run) {
+        RunStateDTO state = run.getState();
+        return state != null && (FAILED_RESULT_STATES.contains(state.getResultState())
+            || state.getLifeCycleState() == RunLifeCycleStateDTO.INTERNAL_ERROR);
+    }
+
+    /**
+     * This job as a csv line, matching {@link #CSV_HEADER}.
+     *
+     * @return csv line
+     */
+    public String toCsv() {
+        return String.join(",", "\"" + jobName.replace("\"", "\"\"") + "\"", String.valueOf(jobId),
+            String.valueOf(runs), String.format("%.4f", failureRate), String.valueOf(canceled),
+            String.valueOf(setupDuration.getP50()), String.valueOf(setupDuration.getP90()),
+            String.valueOf(setupDuration.getP99()), String.valueOf(executionDuration.getP50()),
+            String.valueOf(executionDuration.getP90()), String.valueOf(executionDuration.getP99()),
+            trendRatio == null ? "" : String.format("%.4f", trendRatio), String.valueOf(regressed));
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    /**
+     * The number of cancelled runs, not counted as failures.
+     *
+     * @return cancelled runs
+     */
+    public int getCanceled() {
+        return canceled;
+    }
+
+    public Percentiles getSetupDuration() {
+        return setupDuration;
+    }
+
+    public Percentiles getExecutionDuration() {
+        return executionDuration;
+    }
+
+    /**
+     * The median execution time of the most recent window of successful runs,
+     * divided by the median of the window before it.
+     *
+     * @return the ratio, or null if there are not enough runs
+     */
+    public Double getTrendRatio() {
+        return trendRatio;
+    }
+
+    public boolean isRegressed() {
+        return regressed;
+    }
+
+    /**
+     * Nearest-rank percentiles of a set of durations, 0 when there are none.
+     */
+    public static class Percentiles {
+
+        private long p50;
+        private long p90;
+        private long p99;
+
+        /**
+         * Don't use this - it's for jackson deserialization only.
+         */
+        public Percentiles() {
+        }
+
+        static Percentiles of(List<Long> values) {
+            Percentiles percentiles = new Percentiles();
+            percentiles.p50 = percentile(values, 50);
+            percentiles.p90 = percentile(values, 90);
+            percentiles.p99 = percentile(values, 99);
+            return percentiles;
+        }
+
+        static long percentile(List<Long> values, int percentile) {
+            if (values.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+            return sorted.get(Math.max(rank, 1) - 1);
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+    }
+}
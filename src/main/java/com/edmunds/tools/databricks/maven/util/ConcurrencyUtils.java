@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Runs independent REST calls with bounded parallelism.
+ * Unlike fire-and-forget submission, every task is awaited and all failures are reported together.
+ */
+public class ConcurrencyUtils {
+
+    private ConcurrencyUtils() {
+    }
+
+    /**
+     * Runs all tasks, at most parallelism at a time, and waits for all of them to finish.
+     * A single task, or a parallelism of 1, runs on the calling thread.
+     *
+     * @param tasks the tasks to run
+     * @param parallelism the maximum number of tasks running at once
+     * @param description what the tasks do, used in the error message
+     * @param <T> result type
+     * @return the results, in task order
+     * @throws MojoExecutionException if any task failed, the first failure is the cause and the rest are suppressed
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int parallelism, String description)
+        throws MojoExecutionException {
+        List<T> results = new ArrayList<>(tasks.size());
+        List<Throwable> failures = new ArrayList<>();
+
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    results.add(null);
+                    failures.add(e);
+                }
+            }
+        } else {
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+            try {
+                for (Future<T> future : executorService.invokeAll(tasks)) {
+                    try {
+                        results.add(future.get());
+                    } catch (ExecutionException e) {
+                        results.add(null);
+                        failures.add(e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException(String.format("Interrupted while waiting for: [%s]", description), e);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            MojoExecutionException exception = new MojoExecutionException(
+                String.format("[%s] failed for [%s] of [%s] tasks: %s", description, failures.size(), tasks.size(),
+                    failures.get(0).getMessage()), failures.get(0));
+            failures.stream().skip(1).forEach(exception::addSuppressed);
+            throw exception;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.edmunds.tools.databricks.maven.util.NotebookTree.Notebook;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Packs source notebooks into a databricks archive (DBC), so that a whole tree is imported with a single request.
+ * <p>
+ * A DBC archive is a zip with one json document per notebook, named after the notebook with the language as
+ * extension, e.g. myFolder/myNotebook.python. Each cell of the source notebook becomes a command, with the
+ * MAGIC prefix the source exporter adds to magic cells removed again.
+ * </p>
+ * <p>
+ * The DBC format is not documented, the documents written here are modelled on archives exported from a
+ * workspace. Archives are only used for first deploys (import.archive), the default import uploads sources.
+ * </p>
+ */
+public class DbcArchive {
+
+    private static final Pattern COMMAND_SEPARATOR =
+        Pattern.compile("^\\s*(?://|#|--)\\s*COMMAND -{10}\\s*$", Pattern.MULTILINE);
+    private static final Pattern SOURCE_HEADER =
+        Pattern.compile("\\A\\s*(?://|#|--)\\s*Databricks notebook source\\s*\\R?");
+    // the source exporter comments out every line of a magic cell (%md, %run, %sh...), e.g. "# MAGIC %md"
+    private static final Pattern MAGIC_PREFIX = Pattern.compile("^(?://|#|--) MAGIC(?: |$)", Pattern.MULTILINE);
+
+    private final byte[] bytes;
+    private final Map<String, String> notebookHashes;
+
+    private DbcArchive(byte[] bytes, Map<String, String> notebookHashes) {
+        this.bytes = bytes;
+        this.notebookHashes = notebookHashes;
+    }
+
+    /**
+     * Packs the notebooks under a workspace directory.
+     *
+     * @param tree the local notebooks
+     * @param remoteDir the workspace directory imported as the archive root, e.g. /test/mycoolartifact
+     * @param maxBytes the largest archive to build
+     * @return the archive, or null if it would be larger than maxBytes
+     * @throws IOException exception
+     */
+    public static DbcArchive pack(NotebookTree tree, String remoteDir, long maxBytes) throws IOException {
+        String root = StringUtils.substringAfterLast(remoteDir, "/");
+        Map<String, String> notebookHashes = new LinkedHashMap<>();
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        long origId = 1;
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (Notebook notebook : tree.getNotebooks(remoteDir)) {
+                String name = StringUtils.substringAfterLast(notebook.getRemotePath(), "/");
+                String language = notebook.getLanguage().name().toLowerCase(Locale.ROOT);
+                String relativePath = notebook.getRemotePath().substring(remoteDir.length() + 1);
+                byte[] content = Files.readAllBytes(notebook.getFile());
+
+                ObjectNode document = OBJECT_MAPPER.createObjectNode();
+                document.put("version", "NotebookV1");
+                document.put("origId", origId++);
+                document.put("name", name);
+                document.put("language", language);
+                document.put("guid", UUID.randomUUID().toString());
+                ArrayNode commands = document.putArray("commands");
+                double position = 1;
+                for (String command : splitCommands(new String(content, StandardCharsets.UTF_8))) {
+                    ObjectNode commandNode = commands.addObject();
+                    commandNode.put("version", "CommandV1");
+                    commandNode.put("origId", origId++);
+                    commandNode.put("guid", UUID.randomUUID().toString());
+                    commandNode.put("subtype", "command");
+                    commandNode.put("commandType", "auto");
+                    commandNode.put("position", position++);
+                    commandNode.put("command", command);
+                }
+
+                zip.putNextEntry(new ZipEntry(root + "/" + relativePath + "." + language));
+                zip.write(OBJECT_MAPPER.writeValueAsBytes(document));
+                zip.closeEntry();
+                notebookHashes.put(relativePath, ImportManifest.sha256(content));
+                if (archive.size() > maxBytes) {
+                    return null;
+                }
+            }
+        }
+        if (archive.size() > maxBytes) {
+            return null;
+        }
+        return new DbcArchive(archive.toByteArray(), notebookHashes);
+    }
+
+    static List<String> splitCommands(String source) {
+        String body = SOURCE_HEADER.matcher(source).replaceFirst("");
+        List<String> commands = new ArrayList<>();
+        for (String command : COMMAND_SEPARATOR.split(body)) {
+            commands.add(MAGIC_PREFIX.matcher(command).replaceAll("").trim());
+        }
+        return commands;
+    }
+
+    /**
+     * The archive.
+     *
+     * @return zip bytes
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * The content hashes of the packed notebooks.
+     *
+     * @return notebook path relative to the archive root, without extension, to SHA-256
+     */
+    public Map<String, String> getNotebookHashes() {
+        return notebookHashes;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.AppliedDefault;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Records which defaults were applied to which settings.
+ * <p>
+ * Every settings object with applied defaults gets a single info line listing the paths. The values are only
+ * rendered when debug logging is on, or when a report file is requested.
+ * The report file has a section per settings type (e.g. "jobs", "clusters") so that goals working on different
+ * settings types can share it, each replaces its own section.
+ * </p>
+ */
+public class DefaultsReport {
+
+    private final Log log;
+    private final File reportFile;
+    private final String section;
+    private final Map<String, List<AppliedDefault>> records = new LinkedHashMap<>();
+
+    /**
+     * DefaultsReport constructor.
+     *
+     * @param log where summaries are logged
+     * @param reportFile where the full report is written, may be null
+     * @param section the section of the report file, e.g. "jobs"
+     */
+    public DefaultsReport(Log log, File reportFile, String section) {
+        this.log = log;
+        this.reportFile = reportFile;
+        this.section = section;
+    }
+
+    /**
+     * Records the defaults applied to one settings object.
+     *
+     * @param name the settings name, e.g. the job name
+     * @param applied the applied defaults
+     */
+    public void record(String name, List<AppliedDefault> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        log.info(String.format("%s|set defaults for %s", name,
+            applied.stream().map(AppliedDefault::getPath).collect(Collectors.joining(", ", "[", "]"))));
+        if (log.isDebugEnabled()) {
+            for (AppliedDefault appliedDefault : applied) {
+                log.debug(String.format("%s|set %s with %s", name, appliedDefault.getPath(),
+                    appliedDefault.getValue()));
+            }
+        }
+        if (reportFile != null) {
+            synchronized (records) {
+                records.put(name, applied);
+            }
+        }
+    }
+
+    /**
+     * Writes the recorded defaults to the report file, if one was requested.
+     *
+     * @throws MojoExecutionException exception
+     */
+    public synchronized void write() throws MojoExecutionException {
+        if (reportFile == null) {
+            return;
+        }
+        try {
+            ObjectNode report = OBJECT_MAPPER.createObjectNode();
+            if (reportFile.exists()) {
+                JsonNode existing = OBJECT_MAPPER.readTree(reportFile);
+                if (existing != null && existing.isObject()) {
+                    report = (ObjectNode) existing;
+                }
+            }
+            ObjectNode sectionNode = OBJECT_MAPPER.createObjectNode();
+            synchronized (records) {
+                for (Map.Entry<String, List<AppliedDefault>> record : records.entrySet()) {
+                    ObjectNode defaults = sectionNode.putObject(record.getKey());
+                    record.getValue().forEach(applied -> defaults.set(applied.getPath(), applied.getValue()));
+                }
+            }
+            report.set(section, sectionNode);
+            if (reportFile.getParentFile() != null) {
+                reportFile.getParentFile().mkdirs();
+            }
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Failed to write defaults report: [%s]", reportFile), e);
+        }
+        log.info(String.format("Defaults report written to: [%s]", reportFile));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Loads serialized EnvironmentDTOs for the no project goals.
+ * <p>
+ * A file is parsed once per JVM, so a build that runs several no project goals with the same environment file
+ * reads it once. The file is parsed again if its modification time or size changes.
+ * </p>
+ */
+public class EnvironmentDTOLoader {
+
+    private static final Map<String, CachedEnvironmentDTO> CACHE = new ConcurrentHashMap<>();
+
+    private EnvironmentDTOLoader() {
+    }
+
+    /**
+     * Loads the EnvironmentDTO from a file, as prepared by prepare-job-resources.
+     *
+     * @param environmentDTOFile the serialized EnvironmentDTO
+     * @param environment the runtime environment, overrides the serialized one unless null
+     * @return a copy of the loaded EnvironmentDTO, its properties must not be modified
+     * @throws MojoExecutionException exception
+     */
+    public static EnvironmentDTO load(File environmentDTOFile, String environment) throws MojoExecutionException {
+        if (environmentDTOFile == null) {
+            throw new MojoExecutionException("environmentDTOFile must be set!");
+        }
+        String path;
+        try {
+            path = environmentDTOFile.getCanonicalPath();
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        long lastModified = environmentDTOFile.lastModified();
+        long length = environmentDTOFile.length();
+        CachedEnvironmentDTO cached = CACHE.get(path);
+        if (cached == null || cached.lastModified != lastModified || cached.length != length) {
+            cached = new CachedEnvironmentDTO(EnvironmentDTO.loadEnvironmentDTOFromFile(environmentDTOFile),
+                lastModified, length);
+            CACHE.put(path, cached);
+        }
+        // The environment is set at runtime, not at build time, so it is applied to a copy
+        return cached.environmentDTO.withEnvironment(environment);
+    }
+
+    /**
+     * NOTE - only for unit testing.
+     */
+    static void clear() {
+        CACHE.clear();
+    }
+
+    private static class CachedEnvironmentDTO {
+
+        private final EnvironmentDTO environmentDTO;
+        private final long lastModified;
+        private final long length;
+
+        CachedEnvironmentDTO(EnvironmentDTO environmentDTO, long lastModified, long length) {
+            this.environmentDTO = environmentDTO;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Remembers the content hash of every notebook that was last imported, so that unchanged notebooks are not
+ * imported again.
+ * <p>
+ * The manifest has a section per workspace host, so deploying the same build to several workspaces does not
+ * skip notebooks that were only imported into another one. Only notebooks that were imported successfully or
+ * skipped as unchanged are written back, a failed import is retried next time.
+ * </p>
+ */
+public class ImportManifest {
+
+    private static final Log log = new SystemStreamLog();
+
+    private final File manifestFile;
+    private final String workspace;
+    private final Map<String, String> previous = new ConcurrentHashMap<>();
+    private final Map<String, String> current = new ConcurrentHashMap<>();
+
+    private ImportManifest(File manifestFile, String workspace) {
+        this.manifestFile = manifestFile;
+        this.workspace = workspace;
+    }
+
+    /**
+     * Loads the manifest of a workspace. A missing or unreadable manifest is empty.
+     *
+     * @param manifestFile the manifest file
+     * @param workspace the workspace host
+     * @return the manifest
+     */
+    public static ImportManifest load(File manifestFile, String workspace) {
+        ImportManifest manifest = new ImportManifest(manifestFile, workspace);
+        JsonNode section = readManifest(manifestFile).path(workspace);
+        for (Iterator<Map.Entry<String, JsonNode>> fields = section.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            manifest.previous.put(field.getKey(), field.getValue().asText());
+        }
+        return manifest;
+    }
+
+    /**
+     * Whether a notebook was last imported with the same content. If so it is kept in the manifest.
+     *
+     * @param remotePath the workspace path of the notebook
+     * @param hash the content hash, see {@link #sha256(byte[])}
+     * @return true if the notebook does not need to be imported
+     */
+    public boolean isUnchanged(String remotePath, String hash) {
+        if (hash.equals(previous.get(remotePath))) {
+            current.put(remotePath, hash);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a successful import.
+     *
+     * @param remotePath the workspace path of the notebook
+     * @param hash the content hash, see {@link #sha256(byte[])}
+     */
+    public void imported(String remotePath, String hash) {
+        current.put(remotePath, hash);
+    }
+
+    /**
+     * Writes the skipped and imported notebooks of this workspace, keeping the sections of other workspaces.
+     *
+     * @throws MojoExecutionException exception
+     */
+    public synchronized void save() throws MojoExecutionException {
+        ObjectNode manifest = readManifest(manifestFile);
+        ObjectNode section = manifest.putObject(workspace);
+        new TreeMap<>(current).forEach(section::put);
+        try {
+            FileUtils.forceMkdir(manifestFile.getAbsoluteFile().getParentFile());
+            File tempFile = File.createTempFile(manifestFile.getName(), ".tmp",
+                manifestFile.getAbsoluteFile().getParentFile());
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile, manifest);
+            Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Failed to write import manifest: [%s]", manifestFile), e);
+        }
+    }
+
+    /**
+     * The content hash used by the manifest.
+     *
+     * @param content notebook content
+     * @return SHA-256, as hex
+     */
+    public static String sha256(byte[] content) {
+        return toHex(newDigest().digest(content));
+    }
+
+    /**
+     * The content hash of a file, read without holding the whole file in memory.
+     *
+     * @param file notebook file
+     * @return SHA-256, as hex
+     * @throws IOException exception
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static ObjectNode readManifest(File manifestFile) {
+        if (manifestFile.exists()) {
+            try {
+                JsonNode manifest = OBJECT_MAPPER.readTree(manifestFile);
+                if (manifest != null && manifest.isObject()) {
+                    return (ObjectNode) manifest;
+                }
+            } catch (IOException e) {
+                log.warn(String.format("Ignoring unreadable import manifest: [%s] %s", manifestFile, e.getMessage()));
+            }
+        }
+        return OBJECT_MAPPER.createObjectNode();
+    }
+}
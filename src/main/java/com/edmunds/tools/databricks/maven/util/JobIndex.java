@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of the jobs in a databricks workspace, indexed by job name.
+ * Built from a single pass over the job listing, so looking up many jobs does not cost one listing per job.
+ */
+public class JobIndex {
+
+    private final Map<String, List<JobDTO>> jobsByName = new HashMap<>();
+
+    JobIndex(Collection<JobDTO> jobs) {
+        for (JobDTO job : jobs) {
+            if (job.getSettings() == null) {
+                continue;
+            }
+            jobsByName.computeIfAbsent(job.getSettings().getName(), name -> new ArrayList<>()).add(job);
+        }
+    }
+
+    /**
+     * Reads all jobs from the iterator and indexes them by name.
+     *
+     * @param jobIterator jobIterator, closed by this method
+     * @return the job index
+     * @throws IOException exception
+     * @throws DatabricksRestException exception
+     */
+    public static JobIndex load(JobIterator jobIterator) throws IOException, DatabricksRestException {
+        List<JobDTO> jobs = new ArrayList<>();
+        try (JobIterator iterator = jobIterator) {
+            for (JobDTO job = iterator.next(); job != null; job = iterator.next()) {
+                jobs.add(job);
+            }
+        }
+        return new JobIndex(jobs);
+    }
+
+    /**
+     * All jobs with the given name.
+     *
+     * @param jobName job name
+     * @return matching jobs, empty if none
+     */
+    public List<JobDTO> getJobs(String jobName) {
+        return jobsByName.getOrDefault(jobName, Collections.emptyList());
+    }
+
+    /**
+     * The job with the given name.
+     *
+     * @param jobName job name
+     * @param failOnDuplicateJobName whether to fail when more than one job has this name
+     * @return the first matching job, or null if none
+     * @throws IllegalStateException if there are duplicates and failOnDuplicateJobName is set
+     */
+    public JobDTO getJob(String jobName, boolean failOnDuplicateJobName) {
+        List<JobDTO> jobs = getJobs(jobName);
+        if (jobs.isEmpty()) {
+            return null;
+        }
+        if (jobs.size() > 1 && failOnDuplicateJobName) {
+            throw new IllegalStateException(
+                String.format("Found [%s] jobs with the same name: [%s]", jobs.size(), jobName));
+        }
+        return jobs.get(0);
+    }
+
+    /**
+     * All indexed jobs.
+     *
+     * @return jobs
+     */
+    public List<JobDTO> getAllJobs() {
+        List<JobDTO> jobs = new ArrayList<>();
+        jobsByName.values().forEach(jobs::addAll);
+        return jobs;
+    }
+}
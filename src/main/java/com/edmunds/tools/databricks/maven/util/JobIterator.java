@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Streams the jobs of a workspace page by page.
+ * Each job is read as a small tree and only bound to a {@link JobDTO} if its name passes the filter,
+ * so neither the full response nor the settings of non-matching jobs are kept in memory.
+ * Callers that found what they need can simply stop calling {@link #next()}; no further pages are fetched.
+ */
+public class JobIterator implements Closeable {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final String JOBS = "jobs";
+    private static final String HAS_MORE = "has_more";
+    private static final ObjectReader JOB_READER = OBJECT_MAPPER.readerFor(JobDTO.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final JobPageSource pageSource;
+    private final Predicate<String> nameFilter;
+    private final int pageSize;
+
+    private JsonParser parser;
+    private int offset;
+    private int jobsInPage;
+    private boolean hasMore = true;
+
+    /**
+     * JobIterator constructor.
+     *
+     * @param pageSource where pages are read from
+     * @param nameFilter only jobs whose name passes this filter are returned
+     */
+    public JobIterator(JobPageSource pageSource, Predicate<String> nameFilter) {
+        this(pageSource, nameFilter, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * JobIterator constructor.
+     *
+     * @param pageSource where pages are read from
+     * @param nameFilter only jobs whose name passes this filter are returned
+     * @param pageSize the number of jobs requested per page
+     */
+    public JobIterator(JobPageSource pageSource, Predicate<String> nameFilter, int pageSize) {
+        this.pageSource = pageSource;
+        this.nameFilter = nameFilter;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * The next matching job.
+     *
+     * @return the next job, or null when all pages have been read
+     * @throws IOException exception
+     * @throws DatabricksRestException exception
+     */
+    public JobDTO next() throws IOException, DatabricksRestException {
+        while (true) {
+            if (parser == null) {
+                if (!hasMore || !openPage()) {
+                    return null;
+                }
+            }
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                JsonNode jobNode = OBJECT_MAPPER.readTree(parser);
+                jobsInPage++;
+                String name = jobNode.path("settings").path("name").asText(null);
+                if (nameFilter.test(name)) {
+                    return JOB_READER.readValue(jobNode);
+                }
+            } else {
+                finishPage();
+            }
+        }
+    }
+
+    /**
+     * Opens the next page and positions the parser inside its jobs array.
+     *
+     * @return false if the page has no jobs
+     */
+    private boolean openPage() throws IOException, DatabricksRestException {
+        parser = OBJECT_MAPPER.getFactory().createParser(pageSource.openPage(offset, pageSize));
+        jobsInPage = 0;
+        hasMore = false;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            close();
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (JOBS.equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            readField(field, value);
+        }
+        close();
+        return false;
+    }
+
+    /**
+     * Reads the fields after the jobs array, has_more may come after it.
+     */
+    private void finishPage() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            readField(field, parser.nextToken());
+        }
+        close();
+        offset += jobsInPage;
+        hasMore = hasMore && jobsInPage > 0;
+    }
+
+    private void readField(String field, JsonToken value) throws IOException {
+        if (HAS_MORE.equals(field)) {
+            hasMore = value == JsonToken.VALUE_TRUE;
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
+    }
+}
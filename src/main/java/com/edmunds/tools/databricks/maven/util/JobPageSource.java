@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.edmunds.rest.databricks.DTO.JobsDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.rest.databricks.service.JobService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A source of raw jobs/list response pages. Pages are returned as streams so that they can be parsed incrementally.
+ */
+@FunctionalInterface
+public interface JobPageSource {
+
+    /**
+     * Opens one page of the jobs/list response.
+     *
+     * @param offset the offset of the first job in the page
+     * @param limit the maximum number of jobs in the page
+     * @return the response body, the caller closes it
+     * @throws IOException exception
+     * @throws DatabricksRestException exception
+     */
+    InputStream openPage(int offset, int limit) throws IOException, DatabricksRestException;
+
+    /**
+     * Pages through the jobs/list REST endpoint directly, so the response is never materialized as a whole.
+     * Workspaces that do not support paging return all jobs in the first page, without has_more.
+     *
+     * @param baseUrl databricks url, e.g. https://myworkspace.cloud.databricks.com
+     * @param token databricks token
+     * @param connectTimeoutMillis connect timeout
+     * @param readTimeoutMillis read timeout
+     * @return a paged source
+     */
+    static JobPageSource rest(String baseUrl, String token, int connectTimeoutMillis, int readTimeoutMillis) {
+        return new RestJobPageSource(baseUrl, token, connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    /**
+     * Falls back to the rest client's listAllJobs, as a single page.
+     *
+     * @param jobService jobService
+     * @return a single page source
+     */
+    static JobPageSource fromJobService(JobService jobService) {
+        return (offset, limit) -> {
+            if (offset > 0) {
+                return new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8));
+            }
+            JobsDTO jobsDTO = jobService.listAllJobs();
+            return new ByteArrayInputStream(jobsDTO == null
+                ? "{}".getBytes(StandardCharsets.UTF_8) : OBJECT_MAPPER.writeValueAsBytes(jobsDTO));
+        };
+    }
+}
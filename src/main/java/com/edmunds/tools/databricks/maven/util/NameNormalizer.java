@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Normalizes group ids, workspace paths and job names.
+ * <p>
+ * Validation normalizes the group id once per notebook and job, so the prefixToStrip regex is compiled once
+ * and reused instead of being compiled on every call.
+ * </p>
+ */
+public class NameNormalizer {
+
+    private static final Map<String, Pattern> PREFIX_PATTERNS = new ConcurrentHashMap<>();
+
+    private NameNormalizer() {
+    }
+
+    /**
+     * Removes the company prefix, e.g. "com.edmunds." from a group id or path.
+     *
+     * @param prefixToStrip the prefix regex
+     * @param name the group id or path
+     * @return the name without the prefix
+     */
+    public static String stripPrefix(String prefixToStrip, String name) {
+        return PREFIX_PATTERNS.computeIfAbsent(prefixToStrip, Pattern::compile).matcher(name).replaceAll("");
+    }
+
+    /**
+     * Turns a local notebook directory into a workspace path: package dots and windows separators become "/".
+     *
+     * @param localPath the local path
+     * @return the workspace path
+     */
+    public static String toWorkspacePath(String localPath) {
+        return StringUtils.replaceChars(localPath, ".\\", "//");
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.apache.commons.io.FilenameUtils.getBaseName;
+import static org.apache.commons.io.FilenameUtils.getExtension;
+
+import com.edmunds.rest.databricks.DTO.workspace.LanguageDTO;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * The notebooks under a local directory, with the workspace path each one is imported to.
+ * <p>
+ * The tree is built once and shared by validation, packaging and import, so the directory is walked once.
+ * Subdirectories are walked in parallel.
+ * </p>
+ */
+public class NotebookTree {
+
+    private static final Map<String, LanguageDTO> LANGUAGES;
+
+    static {
+        Map<String, LanguageDTO> languages = new LinkedHashMap<>();
+        languages.put("scala", LanguageDTO.SCALA);
+        languages.put("py", LanguageDTO.PYTHON);
+        languages.put("r", LanguageDTO.R);
+        languages.put("sql", LanguageDTO.SQL);
+        LANGUAGES = Collections.unmodifiableMap(languages);
+    }
+
+    private final Path root;
+    private final List<Path> files;
+    private final List<Notebook> notebooks;
+
+    private NotebookTree(Path root, List<Path> files, List<Notebook> notebooks) {
+        this.root = root;
+        this.files = files;
+        this.notebooks = notebooks;
+    }
+
+    /**
+     * Walks a directory.
+     *
+     * @param root the local directory, its subdirectories become workspace directories
+     * @return the tree, empty if the directory does not exist
+     * @throws IOException exception
+     */
+    public static NotebookTree scan(File root) throws IOException {
+        Path rootPath = root.toPath();
+        Queue<Path> files = new ConcurrentLinkedQueue<>();
+        Queue<Notebook> notebooks = new ConcurrentLinkedQueue<>();
+        if (root.isDirectory()) {
+            try {
+                ForkJoinPool.commonPool().invoke(new DirectoryScan(rootPath, rootPath, files, notebooks));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        List<Path> sortedFiles = files.stream().sorted().collect(Collectors.toList());
+        List<Notebook> sortedNotebooks = notebooks.stream()
+            .sorted(Comparator.comparing(Notebook::getRemotePath))
+            .collect(Collectors.toList());
+        return new NotebookTree(rootPath, Collections.unmodifiableList(sortedFiles),
+            Collections.unmodifiableList(sortedNotebooks));
+    }
+
+    /**
+     * The notebook language of a file.
+     *
+     * @param fileName file name
+     * @return the language, or null if the file is not a notebook
+     */
+    public static LanguageDTO getLanguage(String fileName) {
+        return LANGUAGES.get(getExtension(fileName));
+    }
+
+    /**
+     * The walked directory.
+     *
+     * @return root
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Every regular file under the root, notebooks or not.
+     *
+     * @return paths relative to the root, sorted
+     */
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * The notebooks under the root.
+     *
+     * @return notebooks, sorted by remote path
+     */
+    public List<Notebook> getNotebooks() {
+        return notebooks;
+    }
+
+    /**
+     * The notebooks under a workspace directory, e.g. the workspace prefix.
+     *
+     * @param remoteDir workspace directory, e.g. /test/mycoolartifact
+     * @return notebooks, sorted by remote path
+     */
+    public List<Notebook> getNotebooks(String remoteDir) {
+        String dirPrefix = remoteDir.endsWith("/") ? remoteDir : remoteDir + "/";
+        return notebooks.stream()
+            .filter(notebook -> notebook.getRemotePath().startsWith(dirPrefix))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Lists one directory and forks a scan per subdirectory.
+     */
+    private static class DirectoryScan extends RecursiveAction {
+
+        private final Path root;
+        private final Path directory;
+        private final Queue<Path> files;
+        private final Queue<Notebook> notebooks;
+
+        DirectoryScan(Path root, Path directory, Queue<Path> files, Queue<Notebook> notebooks) {
+            this.root = root;
+            this.directory = directory;
+            this.files = files;
+            this.notebooks = notebooks;
+        }
+
+        @Override
+        protected void compute() {
+            Collection<DirectoryScan> subdirectories = new ArrayList<>();
+            // e.g. the path under the local root, not the full path to it
+            String remoteDir = NameNormalizer.toWorkspacePath(root.relativize(directory).toString());
+            if (!remoteDir.isEmpty()) {
+                remoteDir = "/" + remoteDir;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(new DirectoryScan(root, entry, files, notebooks));
+                    } else if (attributes.isRegularFile()) {
+                        files.add(root.relativize(entry));
+                        String fileName = entry.getFileName().toString();
+                        LanguageDTO language = getLanguage(fileName);
+                        if (language != null) {
+                            notebooks.add(new Notebook(entry, root.relativize(entry), remoteDir,
+                                remoteDir + "/" + getBaseName(fileName), language, attributes.size()));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    /**
+     * A notebook source file.
+     */
+    public static class Notebook {
+
+        private final Path file;
+        private final Path relativePath;
+        private final String remoteDir;
+        private final String remotePath;
+        private final LanguageDTO language;
+        private final long size;
+
+        Notebook(Path file, Path relativePath, String remoteDir, String remotePath, LanguageDTO language,
+            long size) {
+            this.file = file;
+            this.relativePath = relativePath;
+            this.remoteDir = remoteDir;
+            this.remotePath = remotePath;
+            this.language = language;
+            this.size = size;
+        }
+
+        /**
+         * The local file.
+         *
+         * @return file
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * The local file, relative to the root.
+         *
+         * @return e.g. test/mycoolartifact/test1/myFile.sql
+         */
+        public Path getRelativePath() {
+            return relativePath;
+        }
+
+        /**
+         * The workspace directory of the notebook.
+         *
+         * @return e.g. /test/mycoolartifact/test1, empty for notebooks at the root
+         */
+        public String getRemoteDir() {
+            return remoteDir;
+        }
+
+        /**
+         * The workspace path of the notebook.
+         *
+         * @return e.g. /test/mycoolartifact/test1/myFile
+         */
+        public String getRemotePath() {
+            return remotePath;
+        }
+
+        /**
+         * The notebook language.
+         *
+         * @return language
+         */
+        public LanguageDTO getLanguage() {
+            return language;
+        }
+
+        /**
+         * The file size when the tree was built.
+         *
+         * @return bytes
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+}
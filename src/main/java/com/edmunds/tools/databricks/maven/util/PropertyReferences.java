@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The project and system properties that settings templates refer to.
+ * <p>
+ * Only literal references are understood: projectProperties['name'], projectProperties["name"] and
+ * projectProperties.name. If a template uses the properties any other way (a computed name, a loop over them,
+ * an included template), all of them are considered referenced.
+ * </p>
+ */
+public class PropertyReferences {
+
+    private static final String PROJECT_PROPERTIES = "projectProperties";
+
+    private static final Pattern REFERENCE = Pattern.compile(
+        "\\b(projectProperties|systemProperties)\\s*(?:\\[\\s*(['\"])(.*?)\\2\\s*]|\\.([A-Za-z_][\\w]*))");
+    private static final Pattern ANY_USE = Pattern.compile("\\b(projectProperties|systemProperties)\\b");
+
+    // null means all properties
+    private Set<String> projectProperties = new HashSet<>();
+    private Set<String> systemProperties = new HashSet<>();
+
+    private PropertyReferences() {
+    }
+
+    /**
+     * Finds the properties the templates refer to.
+     *
+     * @param templateSources template sources
+     * @return the references
+     */
+    public static PropertyReferences scan(Collection<String> templateSources) {
+        PropertyReferences references = new PropertyReferences();
+        for (String source : templateSources) {
+            if (source.contains("<#include") || source.contains("<#import")) {
+                references.projectProperties = null;
+                references.systemProperties = null;
+                break;
+            }
+            int literalProject = 0;
+            int literalSystem = 0;
+            Matcher matcher = REFERENCE.matcher(source);
+            while (matcher.find()) {
+                String name = matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+                if (PROJECT_PROPERTIES.equals(matcher.group(1))) {
+                    literalProject++;
+                    add(references.projectProperties, name);
+                } else {
+                    literalSystem++;
+                    add(references.systemProperties, name);
+                }
+            }
+            int anyProject = 0;
+            int anySystem = 0;
+            Matcher anyMatcher = ANY_USE.matcher(source);
+            while (anyMatcher.find()) {
+                if (PROJECT_PROPERTIES.equals(anyMatcher.group(1))) {
+                    anyProject++;
+                } else {
+                    anySystem++;
+                }
+            }
+            if (anyProject > literalProject) {
+                references.projectProperties = null;
+            }
+            if (anySystem > literalSystem) {
+                references.systemProperties = null;
+            }
+        }
+        return references;
+    }
+
+    private static void add(Set<String> names, String name) {
+        if (names != null) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * The referenced project properties.
+     *
+     * @return property names, or null if all properties may be referenced
+     */
+    public Set<String> getProjectProperties() {
+        return projectProperties;
+    }
+
+    /**
+     * The referenced system properties.
+     *
+     * @return property names, or null if all properties may be referenced
+     */
+    public Set<String> getSystemProperties() {
+        return systemProperties;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Reads jobs/list pages straight from the REST endpoint.
+ * <p>
+ * Throttled (429) and unavailable (5xx) responses, and timeouts, are retried with a backoff. Connections are
+ * kept alive between pages by the JDK, as long as every page is read to the end and closed.
+ * </p>
+ */
+class RestJobPageSource implements JobPageSource {
+
+    private static final Log log = new SystemStreamLog();
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final String baseUrl;
+    private final String token;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    RestJobPageSource(String baseUrl, String token, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.token = token;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public InputStream openPage(int offset, int limit) throws IOException {
+        URL url = new URL(String.format("%s/api/2.0/jobs/list?offset=%s&limit=%s", baseUrl, offset, limit));
+        for (int attempt = 1; ; attempt++) {
+            String failure;
+            IOException cause = null;
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setConnectTimeout(connectTimeoutMillis);
+                connection.setReadTimeout(readTimeoutMillis);
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+                connection.setRequestProperty("Accept", "application/json");
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_OK) {
+                    return connection.getInputStream();
+                }
+                // The error body is read to the end, so the connection can be reused
+                InputStream errorStream = connection.getErrorStream();
+                String body = errorStream == null ? "" : IOUtils.toString(errorStream, StandardCharsets.UTF_8);
+                IOUtils.closeQuietly(errorStream);
+                failure = String.format("Could not list jobs, status: [%s] response: [%s]", status, body);
+                if (status != TOO_MANY_REQUESTS && status < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                    throw new IOException(failure);
+                }
+            } catch (InterruptedIOException e) {
+                // Connect and read timeouts
+                failure = String.format("Could not list jobs: %s", e.getMessage());
+                cause = e;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IOException(String.format("%s, after [%s] attempts", failure, attempt), cause);
+            }
+            log.warn(String.format("%s, retrying", failure));
+            sleep(RETRY_BACKOFF_MILLIS * attempt);
+        }
+    }
+
+    private void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while listing jobs");
+        }
+    }
+}
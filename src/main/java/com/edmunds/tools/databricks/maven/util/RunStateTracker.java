@@ -0,0 +1,203 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunLifeCycleStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunStateDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
+import com.edmunds.rest.databricks.service.JobService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Tracks the last known state of a set of job runs.
+ * Once a run is known to be in a terminal state it is never polled again, so waiting on a few cancelled runs
+ * costs one getRun call per pending run per poll, instead of re-listing all runs of the job.
+ */
+public class RunStateTracker {
+
+    static final long INITIAL_POLL_MILLIS = 200;
+    static final long DEFAULT_MAX_POLL_MILLIS = 5000;
+
+    private static final Set<RunLifeCycleStateDTO> TERMINAL_STATES = EnumSet.of(
+        RunLifeCycleStateDTO.TERMINATED, RunLifeCycleStateDTO.SKIPPED, RunLifeCycleStateDTO.INTERNAL_ERROR);
+
+    private final JobService jobService;
+    private final Map<Long, RunDTO> runs = new LinkedHashMap<>();
+
+    /**
+     * RunStateTracker constructor.
+     *
+     * @param jobService jobService
+     * @param runs the runs to track, typically the active runs of a job
+     */
+    public RunStateTracker(JobService jobService, RunDTO... runs) {
+        this.jobService = jobService;
+        for (RunDTO run : runs) {
+            this.runs.put(run.getRunId(), run);
+        }
+    }
+
+    /**
+     * Whether the run is known to be finished. A run without a state is assumed to be active.
+     *
+     * @param run run
+     * @return true if the run is in a terminal life cycle state
+     */
+    public static boolean isTerminal(RunDTO run) {
+        return run.getState() != null && TERMINAL_STATES.contains(run.getState().getLifeCycleState());
+    }
+
+    /**
+     * The tracked runs that are not known to be finished.
+     *
+     * @return active runs
+     */
+    public List<RunDTO> getActiveRuns() {
+        return runs.values().stream().filter(run -> !isTerminal(run)).collect(Collectors.toList());
+    }
+
+    /**
+     * The last known state of a tracked run.
+     *
+     * @param runId runId
+     * @return the run, or null if it is not tracked
+     */
+    public RunDTO getRun(long runId) {
+        return runs.get(runId);
+    }
+
+    /**
+     * Whether any tracked run is not known to be finished.
+     *
+     * @return true if there are active runs
+     */
+    public boolean hasActiveRuns() {
+        return !getActiveRuns().isEmpty();
+    }
+
+    /**
+     * Cancels all active runs on the calling thread, so callers that track several jobs at once bound the number
+     * of concurrent cancel calls. Cancellation is asynchronous, use {@link #awaitTermination} to wait for it.
+     *
+     * @throws MojoExecutionException if any cancel call failed, every run is still attempted
+     */
+    public void cancelAll() throws MojoExecutionException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (RunDTO run : getActiveRuns()) {
+            tasks.add(() -> {
+                jobService.cancelRun(run.getRunId());
+                return null;
+            });
+        }
+        ConcurrencyUtils.invokeAll(tasks, 1, "cancel runs");
+    }
+
+    /**
+     * Polls the active runs until they have all finished, backing off up to {@value #DEFAULT_MAX_POLL_MILLIS}ms.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of timeout
+     * @param log log
+     * @throws MojoExecutionException if a run could not be read, or the runs did not finish in time
+     * @see #awaitTermination(long, TimeUnit, long, Log)
+     */
+    public void awaitTermination(long timeout, TimeUnit unit, Log log) throws MojoExecutionException {
+        awaitTermination(timeout, unit, DEFAULT_MAX_POLL_MILLIS, log);
+    }
+
+    /**
+     * Polls the active runs, and only those, until they have all finished. State changes are logged as they are seen.
+     * The poll interval starts at {@value #INITIAL_POLL_MILLIS}ms and doubles up to maxPollMillis
+     * while nothing changes, and drops back to the start whenever a run changes state,
+     * so short runs finish promptly and long runs are not polled needlessly.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of timeout
+     * @param maxPollMillis the longest interval between polls, e.g. short when waiting on cancelled runs
+     * @param log log
+     * @throws MojoExecutionException if a run could not be read, or the runs did not finish in time
+     */
+    public void awaitTermination(long timeout, TimeUnit unit, long maxPollMillis, Log log)
+        throws MojoExecutionException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long pollMillis = INITIAL_POLL_MILLIS;
+
+        List<RunDTO> activeRuns = getActiveRuns();
+        while (!activeRuns.isEmpty()) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                throw new MojoExecutionException(String.format("Runs: %s did not finish within [%s] seconds.",
+                    activeRuns.stream().map(RunDTO::getRunId).collect(Collectors.toList()), unit.toSeconds(timeout)));
+            }
+            log.debug(String.format("Waiting for [%s] runs to finish.", activeRuns.size()));
+            Uninterruptibles.sleepUninterruptibly(Math.min(pollMillis, remainingMillis), TimeUnit.MILLISECONDS);
+
+            boolean changed = false;
+            for (RunDTO run : activeRuns) {
+                RunDTO polled;
+                try {
+                    polled = jobService.getRun(run.getRunId());
+                } catch (DatabricksRestException | IOException e) {
+                    throw new MojoExecutionException(
+                        String.format("Could not get the state of run: [%s]", run.getRunId()), e);
+                }
+                runs.put(run.getRunId(), polled);
+                if (!describeState(run).equals(describeState(polled))) {
+                    log.info(String.format("Run: [%s] is now %s", run.getRunId(), describeState(polled)));
+                    changed = true;
+                }
+            }
+            pollMillis = changed ? INITIAL_POLL_MILLIS : Math.min(pollMillis * 2, maxPollMillis);
+            activeRuns = getActiveRuns();
+        }
+    }
+
+    /**
+     * A one line description of the state of a run.
+     *
+     * @param run run
+     * @return life cycle state, result state and state message
+     */
+    public static String describeState(RunDTO run) {
+        RunStateDTO state = run.getState();
+        if (state == null) {
+            return "[UNKNOWN]";
+        }
+        StringBuilder description = new StringBuilder("[").append(state.getLifeCycleState()).append("]");
+        if (state.getResultState() != null) {
+            description.append(" result: [").append(state.getResultState()).append("]");
+        }
+        if (StringUtils.isNotBlank(state.getStateMessage())) {
+            description.append(" ").append(state.getStateMessage());
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * A content-addressed cache of fully initialized settings.
+ * <p>
+ * The cache file name is a hash of everything the settings are built from, so an entry never has to be
+ * invalidated: any change to the inputs simply addresses another file. A cache problem is logged and treated
+ * as a miss, it never fails the build.
+ * </p>
+ */
+public class SettingsCache {
+
+    private static final Log log = new SystemStreamLog();
+    private static final String PLUGIN_VERSION = readPluginVersion();
+
+    private final File cacheFile;
+    private File tempFile;
+    private JsonGenerator generator;
+
+    /**
+     * SettingsCache constructor.
+     *
+     * @param cacheDirectory where cache files are kept
+     * @param key the hash of the inputs, see {@link #keyBuilder()}
+     */
+    public SettingsCache(File cacheDirectory, String key) {
+        this.cacheFile = new File(cacheDirectory, key + ".json");
+    }
+
+    /**
+     * Passes the cached settings on one at a time, the file is never read into memory as a whole.
+     * The file is read through once before the first settings object is passed on, so an unreadable cache is
+     * still a miss rather than a failure halfway.
+     *
+     * @param settingsDtoClass Settings DTO class
+     * @param handler called with every cached settings object, in the order they were added
+     * @param <S> Settings DTO type
+     * @return true if the settings were read from the cache, false if there are none
+     * @throws MojoExecutionException if the handler fails
+     */
+    public <S> boolean read(Class<S> settingsDtoClass, SettingsUtils.SettingsHandler<S> handler)
+        throws MojoExecutionException {
+        if (!cacheFile.exists()) {
+            return false;
+        }
+        ObjectReader reader = OBJECT_MAPPER.readerFor(settingsDtoClass)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        try {
+            readEach(reader, settingsDTO -> {
+            });
+        } catch (IOException e) {
+            log.warn(String.format("Ignoring unreadable settings cache: [%s] %s", cacheFile, e.getMessage()));
+            return false;
+        }
+        try {
+            readEach(reader, handler);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Could not read settings cache: [%s]", cacheFile), e);
+        }
+        return true;
+    }
+
+    private <S> void readEach(ObjectReader reader, SettingsUtils.SettingsHandler<S> handler)
+        throws IOException, MojoExecutionException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(cacheFile)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Settings must be a json array");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                handler.accept(reader.readValue(parser));
+            }
+        }
+    }
+
+    /**
+     * Starts writing settings, they only become visible to readers once {@link #commit()} is called.
+     */
+    public void begin() {
+        try {
+            FileUtils.forceMkdir(cacheFile.getParentFile());
+            tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+            generator = OBJECT_MAPPER.getFactory().createGenerator(tempFile, JsonEncoding.UTF8);
+            generator.writeStartArray();
+        } catch (IOException e) {
+            log.warn(String.format("Settings will not be cached: %s", e.getMessage()));
+            abort();
+        }
+    }
+
+    /**
+     * Adds one settings object.
+     *
+     * @param settingsDTO settings
+     */
+    public void add(Object settingsDTO) {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.writeObject(settingsDTO);
+        } catch (IOException e) {
+            log.warn(String.format("Settings will not be cached: %s", e.getMessage()));
+            abort();
+        }
+    }
+
+    /**
+     * Makes the written settings visible to readers.
+     */
+    public void commit() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.writeEndArray();
+            generator.close();
+            generator = null;
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn(String.format("Settings will not be cached: %s", e.getMessage()));
+            abort();
+        }
+    }
+
+    /**
+     * Discards the written settings.
+     */
+    public void abort() {
+        IOUtils.closeQuietly(generator);
+        generator = null;
+        FileUtils.deleteQuietly(tempFile);
+        tempFile = null;
+    }
+
+    File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Starts a cache key, already containing the plugin version.
+     *
+     * @return key builder
+     */
+    public static KeyBuilder keyBuilder() {
+        return new KeyBuilder().add(PLUGIN_VERSION);
+    }
+
+    private static String readPluginVersion() {
+        StringBuilder version = new StringBuilder(String.valueOf(SettingsCache.class.getPackage()
+            .getImplementationVersion()));
+        // Snapshots and builds from source keep their version while the code changes, so add the build time
+        CodeSource codeSource = SettingsCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null) {
+            try {
+                version.append(':').append(new File(codeSource.getLocation().toURI()).lastModified());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                version.append(':').append(codeSource.getLocation());
+            }
+        }
+        return version.toString();
+    }
+
+    /**
+     * Hashes the inputs of a cache entry.
+     */
+    public static class KeyBuilder {
+
+        private final MessageDigest digest;
+
+        KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Adds a value.
+         *
+         * @param value value, may be null
+         * @return this
+         */
+        public KeyBuilder add(String value) {
+            return add(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Adds raw bytes.
+         *
+         * @param value value
+         * @return this
+         */
+        public KeyBuilder add(byte[] value) {
+            // The length keeps "ab","c" and "a","bc" apart
+            digest.update(Integer.toString(value.length).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(value);
+            return this;
+        }
+
+        /**
+         * Adds properties, in key order.
+         *
+         * @param properties properties, may be null
+         * @return this
+         */
+        public KeyBuilder add(Properties properties) {
+            Map<String, String> sorted = new TreeMap<>();
+            if (properties != null) {
+                for (String name : properties.stringPropertyNames()) {
+                    sorted.put(name, properties.getProperty(name));
+                }
+            }
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                add(entry.getKey());
+                add(entry.getValue());
+            }
+            return add(Integer.toString(sorted.size()));
+        }
+
+        /**
+         * Finishes the key.
+         *
+         * @return the key, as hex
+         */
+        public String build() {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Compares rendered settings DTOs against the settings that are live in databricks.
+ * Both sides are normalized into json trees first, so that nulls, empty strings, empty arrays and empty objects
+ * (which databricks drops when it stores settings) do not show up as differences.
+ */
+public class SettingsDiffUtils {
+
+    /**
+     * Normalizes a settings object into a json tree without empty values.
+     *
+     * @param settings settings DTO
+     * @return normalized tree, or null if the settings are empty
+     */
+    public static JsonNode normalize(Object settings) {
+        if (settings == null) {
+            return null;
+        }
+        return prune(OBJECT_MAPPER.valueToTree(settings));
+    }
+
+    /**
+     * Whether the desired settings are exactly the live settings, after normalization.
+     * Use this when the desired settings fully replace the live ones (e.g. job reset).
+     *
+     * @param desired rendered settings
+     * @param live settings currently in databricks
+     * @return true if nothing would change
+     */
+    public static boolean isEquivalent(Object desired, Object live) {
+        JsonNode desiredNode = normalize(desired);
+        JsonNode liveNode = normalize(live);
+        return desiredNode == null ? liveNode == null : desiredNode.equals(liveNode);
+    }
+
+    /**
+     * Whether every value in the desired settings is already present in the live settings.
+     * Use this when the live side carries extra runtime fields (e.g. cluster state).
+     *
+     * @param desired normalized rendered settings
+     * @param live normalized settings currently in databricks
+     * @return true if nothing would change
+     */
+    public static boolean isSubsetOf(JsonNode desired, JsonNode live) {
+        if (desired == null) {
+            return true;
+        }
+        if (live == null) {
+            return false;
+        }
+        if (desired.isObject() && live.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!isSubsetOf(field.getValue(), live.get(field.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return desired.equals(live);
+    }
+
+    /**
+     * Removes empty values in place. Returns null when the node itself is empty.
+     */
+    private static JsonNode prune(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isTextual() && node.textValue().isEmpty()) {
+            return null;
+        }
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode pruned = prune(field.getValue());
+                if (pruned == null) {
+                    fields.remove();
+                } else {
+                    field.setValue(pruned);
+                }
+            }
+            return objectNode.size() == 0 ? null : objectNode;
+        }
+        if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = arrayNode.size() - 1; i >= 0; i--) {
+                JsonNode pruned = prune(arrayNode.get(i));
+                if (pruned == null) {
+                    arrayNode.remove(i);
+                } else {
+                    arrayNode.set(i, pruned);
+                }
+            }
+            return arrayNode.size() == 0 ? null : arrayNode;
+        }
+        return node;
+    }
+}
@@ -32,4 +32,32 @@ public interface SettingsInitializer<S> {
      */
     void validate(S settingsDTO, EnvironmentDTO environmentDTO) throws MojoExecutionException;
 
+    /**
+     * Called once all Settings DTOs of a settings file were initialized and validated.
+     *
+     * @throws MojoExecutionException exception
+     */
+    default void complete() throws MojoExecutionException {
+    }
+
+    /**
+     * The name that identifies a Settings DTO, e.g. the job name. Names must be unique across settings files.
+     *
+     * @param settingsDTO Settings DTO.
+     * @return the name, or null if settings have no name
+     */
+    default String getSettingsName(S settingsDTO) {
+        return null;
+    }
+
+    /**
+     * Identifies how this initializer fills in and validates settings, as part of the settings cache key.
+     * Implementations with options that change the result must include them.
+     *
+     * @return cache key
+     */
+    default String getCacheKey() {
+        return getClass().getName();
+    }
+
 }
@@ -0,0 +1,324 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills in settings from defaults by merging Jackson trees, following per-path rules.
+ * <p>
+ * Paths are json field names joined by dots, e.g. "new_cluster.aws_attributes". Only top level fields with a rule
+ * are merged, since the defaults are also a full example that contains mutually exclusive fields (e.g. task types).
+ * For the same reason, inside a {@link Strategy#MERGE_MAP} field only the fields with a rule of their own are merged.
+ * </p>
+ * <p>
+ * A field added to the defaults, at the top level or inside a merged map such as new_cluster, is therefore not
+ * filled in until a rule is added for it.
+ * </p>
+ * <p>
+ * Defaults are deep copied as trees, there is no java serialization involved.
+ * </p>
+ */
+public class SettingsMerger {
+
+    /**
+     * How a user value and a default value are combined.
+     */
+    public enum Strategy {
+        /**
+         * Use the default if the user value is null or absent.
+         */
+        REPLACE_IF_MISSING,
+        /**
+         * Use the default if the user value is empty: null, "", 0, or an array, or object, without elements.
+         */
+        REPLACE_IF_EMPTY,
+        /**
+         * Use the default if the user value is missing, otherwise merge the default fields that have a rule into it.
+         */
+        MERGE_MAP
+    }
+
+    /**
+     * Whether a rule applies, given the user settings as merged so far and the defaults.
+     */
+    @FunctionalInterface
+    public interface Condition {
+
+        boolean test(JsonNode user, JsonNode defaults);
+    }
+
+    /**
+     * A default that was applied.
+     */
+    public static class AppliedDefault {
+
+        private final String path;
+        private final JsonNode value;
+
+        AppliedDefault(String path, JsonNode value) {
+            this.path = path;
+            this.value = value;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public JsonNode getValue() {
+            return value;
+        }
+    }
+
+    private static final Condition ALWAYS = (user, defaults) -> true;
+
+    /**
+     * A condition that holds when a top level user field is empty.
+     *
+     * @param field top level field
+     * @return condition
+     */
+    public static Condition userEmpty(String field) {
+        return (user, defaults) -> isEmpty(user.get(field));
+    }
+
+    /**
+     * A condition that holds when a top level default field is not empty.
+     *
+     * @param field top level field
+     * @return condition
+     */
+    public static Condition defaultNotEmpty(String field) {
+        return (user, defaults) -> !isEmpty(defaults.get(field));
+    }
+
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+    private volatile DefaultsTree lastDefaults;
+
+    /**
+     * Adds a rule. Rules are applied in the order they are added, so conditions can rely on earlier rules.
+     *
+     * @param path field path
+     * @param strategy strategy
+     * @return this
+     */
+    public SettingsMerger rule(String path, Strategy strategy) {
+        return rule(path, strategy, ALWAYS);
+    }
+
+    /**
+     * Adds a rule that only applies when the condition holds.
+     *
+     * @param path field path
+     * @param strategy strategy
+     * @param condition condition
+     * @return this
+     */
+    public SettingsMerger rule(String path, Strategy strategy, Condition condition) {
+        rules.put(path, new Rule(strategy, condition));
+        return this;
+    }
+
+    /**
+     * Adds a {@link Strategy#MERGE_MAP} rule. Its fields are merged by their own rules, e.g. "path.field".
+     *
+     * @param path field path
+     * @return this
+     */
+    public SettingsMerger mergeRule(String path) {
+        return mergeRule(path, ALWAYS);
+    }
+
+    /**
+     * Adds a {@link Strategy#MERGE_MAP} rule that only applies when the condition holds.
+     *
+     * @param path field path
+     * @param condition condition
+     * @return this
+     */
+    public SettingsMerger mergeRule(String path, Condition condition) {
+        return rule(path, Strategy.MERGE_MAP, condition);
+    }
+
+    /**
+     * Fills in the settings from the defaults, in place.
+     *
+     * @param settings the user settings, updated in place
+     * @param defaults the default settings, not modified
+     * @param <T> settings type
+     * @return the defaults that were applied
+     * @throws JsonProcessingException exception
+     */
+    public <T> List<AppliedDefault> apply(T settings, T defaults) throws JsonProcessingException {
+        ObjectNode user = OBJECT_MAPPER.valueToTree(settings);
+        List<AppliedDefault> applied = merge(user, getDefaultsTree(defaults));
+        if (!applied.isEmpty()) {
+            try {
+                OBJECT_MAPPER.readerForUpdating(settings)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(user);
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                throw JsonMappingException.fromUnexpectedIOE(e);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Merges the defaults into the user tree, in place.
+     *
+     * @param user the user settings
+     * @param defaults the default settings, not modified
+     * @return the defaults that were applied
+     */
+    public List<AppliedDefault> merge(ObjectNode user, ObjectNode defaults) {
+        List<AppliedDefault> applied = new ArrayList<>();
+        for (Map.Entry<String, Rule> entry : rules.entrySet()) {
+            if (!entry.getKey().contains(".")) {
+                mergeField(entry.getKey(), entry.getKey(), entry.getValue(), user, user, defaults, defaults, applied);
+            }
+        }
+        return applied;
+    }
+
+    private void mergeField(String path, String field, Rule rule, ObjectNode userRoot, ObjectNode userParent,
+        ObjectNode defaultsRoot, JsonNode defaultsParent, List<AppliedDefault> applied) {
+        JsonNode defaultValue = defaultsParent.get(field);
+        if (isMissing(defaultValue) || !rule.condition.test(userRoot, defaultsRoot)) {
+            return;
+        }
+        JsonNode userValue = userParent.get(field);
+
+        switch (rule.strategy) {
+            case REPLACE_IF_MISSING: {
+                if (isMissing(userValue)) {
+                    replace(path, field, userParent, defaultValue, applied);
+                }
+                break;
+            }
+            case REPLACE_IF_EMPTY: {
+                // Swapping one empty value for another is not worth applying
+                if (isEmpty(userValue) && (isMissing(userValue) || !isEmpty(defaultValue))) {
+                    replace(path, field, userParent, defaultValue, applied);
+                }
+                break;
+            }
+            case MERGE_MAP: {
+                if (isMissing(userValue)) {
+                    replace(path, field, userParent, defaultValue, applied);
+                } else if (userValue.isObject() && defaultValue.isObject()) {
+                    for (Map.Entry<String, Rule> entry : rules.entrySet()) {
+                        String childPath = entry.getKey();
+                        if (childPath.startsWith(path + ".") && childPath.indexOf('.', path.length() + 1) < 0) {
+                            mergeField(childPath, childPath.substring(path.length() + 1), entry.getValue(), userRoot,
+                                (ObjectNode) userValue, defaultsRoot, defaultValue, applied);
+                        }
+                    }
+                }
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+    }
+
+    private void replace(String path, String field, ObjectNode userParent, JsonNode defaultValue,
+        List<AppliedDefault> applied) {
+        JsonNode value = defaultValue.deepCopy();
+        userParent.set(field, value);
+        applied.add(new AppliedDefault(path, value));
+    }
+
+    private ObjectNode getDefaultsTree(Object defaults) {
+        // The same defaults are applied to every settings object of a file, convert them once
+        DefaultsTree defaultsTree = lastDefaults;
+        if (defaultsTree == null || defaultsTree.defaults != defaults) {
+            defaultsTree = new DefaultsTree(defaults, OBJECT_MAPPER.valueToTree(defaults));
+            lastDefaults = defaultsTree;
+        }
+        return defaultsTree.tree;
+    }
+
+    /**
+     * Whether a value is null or absent.
+     *
+     * @param node node
+     * @return true if missing
+     */
+    public static boolean isMissing(JsonNode node) {
+        return node == null || node.isNull() || node.isMissingNode();
+    }
+
+    /**
+     * Whether a value is empty: missing, "", 0, or an array or object without elements.
+     * Like MapUtils.isEmpty, a map is not empty because its values are, e.g. {"X": ""} is kept.
+     *
+     * @param node node
+     * @return true if empty
+     */
+    public static boolean isEmpty(JsonNode node) {
+        if (isMissing(node)) {
+            return true;
+        }
+        if (node.isTextual()) {
+            return node.textValue().isEmpty();
+        }
+        if (node.isNumber()) {
+            return node.doubleValue() == 0;
+        }
+        if (node.isContainerNode()) {
+            return node.size() == 0;
+        }
+        return false;
+    }
+
+    private static class Rule {
+
+        private final Strategy strategy;
+        private final Condition condition;
+
+        Rule(Strategy strategy, Condition condition) {
+            this.strategy = strategy;
+            this.condition = condition;
+        }
+    }
+
+    private static class DefaultsTree {
+
+        private final Object defaults;
+        private final ObjectNode tree;
+
+        DefaultsTree(Object defaults, ObjectNode tree) {
+            this.defaults = defaults;
+            this.tree = tree;
+        }
+    }
+}
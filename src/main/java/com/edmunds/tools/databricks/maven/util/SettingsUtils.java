@@ -17,22 +17,36 @@
 package com.edmunds.tools.databricks.maven.util;
 
 import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import freemarker.cache.FileTemplateLoader;
-import freemarker.cache.StringTemplateLoader;
-import freemarker.cache.TemplateLoader;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.Uninterruptibles;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import java.io.File;
 import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
@@ -47,12 +61,17 @@ import org.apache.maven.plugin.logging.SystemStreamLog;
 public class SettingsUtils<S> {
 
     private static final Log log = new SystemStreamLog();
+    private static final Map<String, String> DEFAULT_SETTINGS_JSONS = new ConcurrentHashMap<>();
+    private static final int PIPE_SIZE = 64 * 1024;
 
     private final Class<S[]> settingsDtoArrayClass;
     private final String defaultSettingsJson;
     private final File userSettingsFile;
     private final EnvironmentDTO environmentDTO;
     private final SettingsInitializer<S> settingsInitializer;
+    private final File cacheDirectory;
+    // The rendered default settings, bound to a fresh DTO on every call so callers can not alter each others copy
+    private JsonNode defaultSettingsNode;
 
     /**
      * SettingsUtils constructor. Mojos instantiate this class and use it for building up Settings DTOs.
@@ -66,11 +85,29 @@ public class SettingsUtils<S> {
     public SettingsUtils(Class<S[]> settingsDtoArrayClass, String defaultSettingsFileName, File userSettingsFile,
         EnvironmentDTOSupplier environmentDTOSupplier, SettingsInitializer<S> settingsInitializer)
         throws MojoExecutionException {
+        this(settingsDtoArrayClass, defaultSettingsFileName, userSettingsFile, environmentDTOSupplier,
+            settingsInitializer, null);
+    }
+
+    /**
+     * SettingsUtils constructor, caching the initialized Settings DTOs.
+     *
+     * @param settingsDtoArrayClass Settings DTO array class, required because of generics type erasure.
+     * @param defaultSettingsFileName Default Settings DTO file name.
+     * @param userSettingsFile User Settings DTO file.
+     * @param environmentDTOSupplier Project and Environment properties DTO Supplier.
+     * @param settingsInitializer Settings DTO initializer for a concrete Mojo.
+     * @param cacheDirectory Where initialized Settings DTOs are cached, null to not cache.
+     */
+    public SettingsUtils(Class<S[]> settingsDtoArrayClass, String defaultSettingsFileName, File userSettingsFile,
+        EnvironmentDTOSupplier environmentDTOSupplier, SettingsInitializer<S> settingsInitializer,
+        File cacheDirectory) throws MojoExecutionException {
         this.settingsDtoArrayClass = settingsDtoArrayClass;
         this.defaultSettingsJson = readDefaultSettingsJson(defaultSettingsFileName);
         this.userSettingsFile = userSettingsFile;
         this.environmentDTO = environmentDTOSupplier.get();
         this.settingsInitializer = settingsInitializer;
+        this.cacheDirectory = cacheDirectory;
     }
 
     /**
@@ -80,61 +117,291 @@ public class SettingsUtils<S> {
      * @return Default Mojo Settings DTO.
      * @throws MojoExecutionException exception
      */
-    public S defaultSettingsDTO() throws MojoExecutionException {
-        return deserializeSettings(enrichDefaultSettingsWithEnvironment())[0];
+    public synchronized S defaultSettingsDTO() throws MojoExecutionException {
+        if (defaultSettingsNode == null) {
+            S[] defaultSettingsDTOs = deserializeSettings(enrichDefaultSettingsWithEnvironment());
+            defaultSettingsNode = ObjectMapperUtils.OBJECT_MAPPER.valueToTree(defaultSettingsDTOs);
+            return defaultSettingsDTOs[0];
+        }
+        try {
+            S[] defaultSettingsDTOs = ObjectMapperUtils.OBJECT_MAPPER.readerFor(settingsDtoArrayClass)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(defaultSettingsNode);
+            return defaultSettingsDTOs[0];
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read Default Settings json", e);
+        }
     }
 
     /**
      * Constructs Settings DTO from user specified settings, default settings, project and environment properties.
+     * All Settings DTOs are held in memory, callers that only need names or counts use
+     * {@link #forEachSettingsDTOWithDefaults(SettingsHandler)}.
      *
      * @return Mojo Settings DTO.
      * @throws MojoExecutionException exception
      */
     public List<S> buildSettingsDTOsWithDefaults() throws MojoExecutionException {
-        String userSettingsJson = getUserSettingsJson();
-        if (userSettingsJson == null) {
-            return Collections.emptyList();
+        List<S> settingsDTOs = new ArrayList<>();
+        forEachSettingsDTOWithDefaults(settingsDTOs::add);
+        return settingsDTOs;
+    }
+
+    /**
+     * Streams Settings DTOs from user specified settings, default settings, project and environment properties.
+     * The user settings file is rendered into a pipe and parsed one element at a time, each element is filled in
+     * with defaults and validated as soon as it is read. Neither the rendered json nor the whole array is held
+     * in memory, and the first invalid element fails without the rest of the file being rendered.
+     * If a cache directory is set, a fully processed file is cached, and the cached DTOs are used as long as
+     * none of the inputs change.
+     * <p>
+     * The user settings file may also be a directory, whose json files are used, or a glob in the file name,
+     * e.g. jobs/*.json. Several files are rendered in parallel and cached one by one, the Settings DTOs are passed
+     * on once all files are processed, in file name order. Settings names must be unique, within a file and across
+     * the files.
+     * </p>
+     *
+     * @param handler called with every Settings DTO, in file order
+     * @throws MojoExecutionException exception
+     */
+    public void forEachSettingsDTOWithDefaults(SettingsHandler<S> handler) throws MojoExecutionException {
+        List<File> settingsFiles = resolveSettingsFiles(userSettingsFile);
+        if (settingsFiles.isEmpty()) {
+            log.info(String.format("Specified User Settings file not found (%s)", userSettingsFile.getAbsolutePath()));
+            return;
         }
 
-        S defaultSettingDTO = defaultSettingsDTO();
-        List<S> settingsDTOs = Arrays.asList(deserializeSettings(userSettingsJson));
-        for (S settingsDTO : settingsDTOs) {
-            try {
-                settingsInitializer.fillInDefaults(settingsDTO, defaultSettingDTO, environmentDTO);
-            } catch (JsonProcessingException e) {
-                throw new MojoExecutionException("Fail to fill empty-value with default", e);
+        Map<String, File> names = new HashMap<>();
+        boolean rendered;
+        if (settingsFiles.size() == 1) {
+            File settingsFile = settingsFiles.get(0);
+            rendered = processSettingsFile(settingsFile, settingsDTO -> {
+                checkUniqueName(names, settingsDTO, settingsFile);
+                handler.accept(settingsDTO);
+            });
+        } else {
+            List<Callable<List<S>>> tasks = new ArrayList<>();
+            AtomicBoolean anyRendered = new AtomicBoolean();
+            for (File settingsFile : settingsFiles) {
+                tasks.add(() -> {
+                    List<S> settingsDTOs = new ArrayList<>();
+                    if (processSettingsFile(settingsFile, settingsDTOs::add)) {
+                        anyRendered.set(true);
+                    }
+                    return settingsDTOs;
+                });
+            }
+            List<List<S>> settingsDTOsPerFile = ConcurrencyUtils.invokeAll(tasks,
+                Runtime.getRuntime().availableProcessors(), "process settings files");
+            rendered = anyRendered.get();
+
+            for (int i = 0; i < settingsFiles.size(); i++) {
+                for (S settingsDTO : settingsDTOsPerFile.get(i)) {
+                    checkUniqueName(names, settingsDTO, settingsFiles.get(i));
+                }
             }
-            // Validate all mojo settings. If any fail terminate.
-            settingsInitializer.validate(settingsDTO, environmentDTO);
+            for (List<S> settingsDTOs : settingsDTOsPerFile) {
+                for (S settingsDTO : settingsDTOs) {
+                    handler.accept(settingsDTO);
+                }
+            }
+        }
+        // Cached settings apply no defaults, there is nothing new to report for them
+        if (rendered) {
+            settingsInitializer.complete();
         }
+    }
 
-        return settingsDTOs;
+    private void checkUniqueName(Map<String, File> names, S settingsDTO, File settingsFile)
+        throws MojoExecutionException {
+        String name = settingsInitializer.getSettingsName(settingsDTO);
+        File previous = name == null ? null : names.putIfAbsent(name, settingsFile);
+        if (previous != null) {
+            throw new MojoExecutionException(String.format(
+                "Duplicate settings name: [%s] in: [%s] and [%s]", name, previous, settingsFile));
+        }
     }
 
     /**
-     * Produces Mojo Settings DTO json from User Settings file and Environment DTO.
+     * The settings files a user settings path stands for: the file itself, the json files of a directory,
+     * or the files matching a glob in the file name.
      *
-     * @return Mojo Settings DTO json.
-     * @throws MojoExecutionException exception
+     * @param settingsPath user settings path
+     * @return the files, sorted by name, empty if there are none
      */
-    String getUserSettingsJson() throws MojoExecutionException {
-        String userSettingsPath = userSettingsFile.getAbsolutePath();
-        if (!userSettingsFile.exists()) {
-            log.info(String.format("Specified User Settings file not found (%s)", userSettingsPath));
-            return null;
+    public static List<File> resolveSettingsFiles(File settingsPath) {
+        File[] files;
+        if (settingsPath.isDirectory()) {
+            files = settingsPath.listFiles(file -> file.isFile() && file.getName().endsWith(".json"));
+        } else if (StringUtils.containsAny(settingsPath.getName(), '*', '?', '[', '{')) {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + settingsPath.getName());
+            File directory = settingsPath.getAbsoluteFile().getParentFile();
+            files = directory.listFiles(file -> file.isFile() && matcher.matches(Paths.get(file.getName())));
+        } else {
+            files = settingsPath.exists() ? new File[]{settingsPath} : null;
         }
-        StringWriter stringWriter = new StringWriter();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    private boolean processSettingsFile(File settingsFile, SettingsHandler<S> handler) throws MojoExecutionException {
+        SettingsCache cache = openCache(settingsFile);
+        if (cache == null) {
+            renderSettingsDTOsWithDefaults(settingsFile, handler);
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Class<S> settingsDtoClass = (Class<S>) settingsDtoArrayClass.getComponentType();
+        if (cache.read(settingsDtoClass, handler)) {
+            log.info(String.format("Loaded settings of [%s] from cache", settingsFile.getAbsolutePath()));
+            return false;
+        }
+        cache.begin();
         try {
-            TemplateLoader templateLoader = new FileTemplateLoader(userSettingsFile.getParentFile());
-            Template temp = getFreemarkerConfiguration(templateLoader).getTemplate(userSettingsFile.getName());
-            temp.process(environmentDTO, stringWriter);
-        } catch (IOException | TemplateException e) {
+            // Cached before the handler sees it, handlers may change the DTO
+            renderSettingsDTOsWithDefaults(settingsFile, settingsDTO -> {
+                cache.add(settingsDTO);
+                handler.accept(settingsDTO);
+            });
+        } catch (MojoExecutionException | RuntimeException e) {
+            cache.abort();
+            throw e;
+        }
+        cache.commit();
+        return true;
+    }
+
+    private void renderSettingsDTOsWithDefaults(File settingsFile, SettingsHandler<S> handler)
+        throws MojoExecutionException {
+        String userSettingsPath = settingsFile.getAbsolutePath();
+        // Read with the first element, so an error in the user settings file is reported before one in the defaults
+        S defaultSettingDTO = null;
+        @SuppressWarnings("unchecked")
+        Class<S> settingsDtoClass = (Class<S>) settingsDtoArrayClass.getComponentType();
+
+        PipedReader reader = new PipedReader(PIPE_SIZE);
+        AtomicBoolean readerClosed = new AtomicBoolean();
+        AtomicReference<Exception> renderFailure = new AtomicReference<>();
+        Thread renderer;
+        try {
+            PipedWriter writer = new PipedWriter(reader);
+            renderer = new Thread(() -> {
+                try {
+                    TemplateEngine.render(settingsFile, environmentDTO, writer);
+                } catch (IOException | TemplateException e) {
+                    // Once the reader has given up, the writer failing is expected
+                    if (!readerClosed.get()) {
+                        renderFailure.set(e);
+                    }
+                } finally {
+                    // Closed only after the failure is recorded, so the parser never sees the end first
+                    IOUtils.closeQuietly(writer);
+                }
+            }, "settings-renderer-" + settingsFile.getName());
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        renderer.setDaemon(true);
+        renderer.start();
+
+        int index = 0;
+        try (JsonParser parser = ObjectMapperUtils.OBJECT_MAPPER.getFactory().createParser(reader)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Settings must be a json array");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                S settingsDTO = ObjectMapperUtils.OBJECT_MAPPER.readValue(parser, settingsDtoClass);
+                if (defaultSettingDTO == null) {
+                    defaultSettingDTO = defaultSettingsDTO();
+                }
+                try {
+                    settingsInitializer.fillInDefaults(settingsDTO, defaultSettingDTO, environmentDTO);
+                } catch (JsonProcessingException e) {
+                    throw new MojoExecutionException("Fail to fill empty-value with default", e);
+                }
+                // Validate all mojo settings. If any fail terminate.
+                settingsInitializer.validate(settingsDTO, environmentDTO);
+                handler.accept(settingsDTO);
+                index++;
+            }
+            // Reads to the end of the output, so nothing rendered after the array goes unnoticed
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the settings array");
+            }
+            awaitRenderer(renderer, readerClosed, reader);
+        } catch (IOException e) {
+            awaitRenderer(renderer, readerClosed, reader);
+            throwRenderFailure(renderFailure.get(), userSettingsPath);
+            throw new MojoExecutionException(String.format(
+                "Failed to unmarshal Settings DTO at index: [%s] in: [%s]%n%s%n"
+                    + "Here is an example, of what it should look like:%n[%s]%n",
+                index, userSettingsPath, e.getMessage(), defaultSettingsJson), e);
+        } finally {
+            awaitRenderer(renderer, readerClosed, reader);
+        }
+        throwRenderFailure(renderFailure.get(), userSettingsPath);
+    }
+
+    private void awaitRenderer(Thread renderer, AtomicBoolean readerClosed, PipedReader reader) {
+        // If the parser stopped early the renderer may be blocked on a full pipe, closing the reader alone
+        // does not wake it up, interrupting it does
+        if (!readerClosed.getAndSet(true)) {
+            IOUtils.closeQuietly(reader);
+            renderer.interrupt();
+        }
+        Uninterruptibles.joinUninterruptibly(renderer);
+    }
+
+    private void throwRenderFailure(Exception renderFailure, String userSettingsPath) throws MojoExecutionException {
+        if (renderFailure != null) {
             throw new MojoExecutionException(String
                 .format("Failed to process User Settings file: [%s]%nFreemarker message:%n%s", userSettingsPath,
-                    e.getMessage()), e);
+                    renderFailure.getMessage()), renderFailure);
         }
+    }
 
-        return stringWriter.toString();
+    /**
+     * The cache entry for the current inputs: the template, the default json, the environment, the initializer
+     * and the plugin version.
+     *
+     * @return the cache, or null if the settings can not be cached
+     */
+    private SettingsCache openCache(File settingsFile) {
+        if (cacheDirectory == null) {
+            return null;
+        }
+        byte[] template;
+        try {
+            template = FileUtils.readFileToByteArray(settingsFile);
+        } catch (IOException e) {
+            return null;
+        }
+        String templateSource = new String(template, StandardCharsets.UTF_8);
+        // Included templates are not part of the key
+        if (TemplateEngine.hasIncludes(templateSource)) {
+            log.debug(String.format("Settings of [%s] include other templates, not caching", settingsFile));
+            return null;
+        }
+        SettingsCache.KeyBuilder key = SettingsCache.keyBuilder()
+            .add(settingsDtoArrayClass.getName())
+            .add(template)
+            .add(defaultSettingsJson)
+            .add(settingsInitializer.getCacheKey())
+            .add(environmentDTO.getGroupId())
+            .add(environmentDTO.getArtifactId())
+            .add(environmentDTO.getVersion())
+            .add(environmentDTO.getEnvironment())
+            .add(environmentDTO.getGroupWithoutCompany())
+            .add(environmentDTO.getDatabricksRepo())
+            .add(environmentDTO.getDatabricksRepoKey())
+            .add(environmentDTO.getProjectProperties());
+        // System properties differ from one maven invocation to the next, only add them when they can matter
+        if (templateSource.contains("systemProperties") || defaultSettingsJson.contains("systemProperties")) {
+            key.add(environmentDTO.getSystemProperties());
+        }
+        return new SettingsCache(cacheDirectory, key.build());
     }
 
     /**
@@ -146,10 +413,7 @@ public class SettingsUtils<S> {
     private String enrichDefaultSettingsWithEnvironment() throws MojoExecutionException {
         StringWriter stringWriter = new StringWriter();
         try {
-            StringTemplateLoader templateLoader = new StringTemplateLoader();
-            templateLoader.putTemplate("defaultSettings", defaultSettingsJson);
-            Template temp = getFreemarkerConfiguration(templateLoader).getTemplate("defaultSettings");
-            temp.process(environmentDTO, stringWriter);
+            TemplateEngine.render("defaultSettings", defaultSettingsJson, environmentDTO, stringWriter);
         } catch (IOException | TemplateException e) {
             throw new MojoExecutionException(String
                 .format("Failed to process Default Settings json: [%s]%nFreemarker message:%n%s", defaultSettingsJson,
@@ -159,15 +423,6 @@ public class SettingsUtils<S> {
         return stringWriter.toString();
     }
 
-    private Configuration getFreemarkerConfiguration(TemplateLoader templateLoader) throws IOException {
-        Configuration cfg = new Configuration(Configuration.VERSION_2_3_22);
-        cfg.setTemplateLoader(templateLoader);
-        cfg.setDefaultEncoding("UTF-8");
-        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-
-        return cfg;
-    }
-
     private S[] deserializeSettings(String settingsDTOJson) throws MojoExecutionException {
         try {
             return ObjectMapperUtils.deserialize(settingsDTOJson, settingsDtoArrayClass);
@@ -180,6 +435,10 @@ public class SettingsUtils<S> {
     }
 
     private String readDefaultSettingsJson(String defaultSettingsFileName) {
+        return DEFAULT_SETTINGS_JSONS.computeIfAbsent(defaultSettingsFileName, this::loadDefaultSettingsJson);
+    }
+
+    private String loadDefaultSettingsJson(String defaultSettingsFileName) {
         try {
             return IOUtils
                 .toString(this.getClass().getResourceAsStream(defaultSettingsFileName), StandardCharsets.UTF_8);
@@ -188,4 +447,14 @@ public class SettingsUtils<S> {
         }
     }
 
+    /**
+     * Receives Settings DTOs as they are parsed.
+     *
+     * @param <S> Settings DTO POJO that contains Mojo settings.
+     */
+    @FunctionalInterface
+    public interface SettingsHandler<S> {
+
+        void accept(S settingsDTO) throws MojoExecutionException;
+    }
 }
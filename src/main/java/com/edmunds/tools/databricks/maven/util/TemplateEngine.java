@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import freemarker.cache.FileTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateExceptionHandler;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * A process-wide freemarker engine. Mojos in one reactor build share its configuration and compiled templates,
+ * instead of setting up freemarker for every render.
+ * <p>
+ * File templates are cached by path and content, so an edited file is recompiled however soon it is edited.
+ * Templates that include or import other templates are never cached, as edits to the included files
+ * would go unnoticed, the same way SettingsUtils does not cache their output.
+ * String templates are cached by their content. Both caches keep the {@value #MAX_CACHED_TEMPLATES}
+ * most recently used templates.
+ * Configurations and templates are thread safe once built, so renders may run concurrently.
+ * </p>
+ */
+public class TemplateEngine {
+
+    static final int MAX_CACHED_TEMPLATES = 256;
+
+    private static final Configuration STRING_CONFIGURATION = newConfiguration();
+    private static final Map<String, Template> FILE_TEMPLATES = newTemplateCache();
+    private static final Map<String, Template> STRING_TEMPLATES = newTemplateCache();
+
+    private TemplateEngine() {
+    }
+
+    /**
+     * Renders a template file. Includes are resolved relative to the directory of the file.
+     *
+     * @param templateFile template file
+     * @param model the data model
+     * @param out where the output is written
+     * @throws IOException exception
+     * @throws TemplateException exception
+     */
+    public static void render(File templateFile, Object model, Writer out) throws IOException, TemplateException {
+        getTemplate(templateFile).process(model, out);
+    }
+
+    /**
+     * Renders a template held in a string.
+     *
+     * @param name template name, used in error messages
+     * @param source template source
+     * @param model the data model
+     * @param out where the output is written
+     * @throws IOException exception
+     * @throws TemplateException exception
+     */
+    public static void render(String name, String source, Object model, Writer out)
+        throws IOException, TemplateException {
+        getTemplate(name, source).process(model, out);
+    }
+
+    /**
+     * Whether a template source pulls in other templates.
+     *
+     * @param source template source
+     * @return true if the source has an include or import directive
+     */
+    public static boolean hasIncludes(String source) {
+        return source.contains("<#include") || source.contains("<#import");
+    }
+
+    static Template getTemplate(File templateFile) throws IOException {
+        File file = templateFile.getAbsoluteFile();
+        String source = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        if (hasIncludes(source)) {
+            // A fresh configuration reads every included file again
+            Configuration configuration = newConfiguration();
+            configuration.setTemplateLoader(new FileTemplateLoader(file.getParentFile()));
+            return new Template(file.getName(), new StringReader(source), configuration);
+        }
+        String key = file.getPath() + "\n" + source;
+        Template template = FILE_TEMPLATES.get(key);
+        if (template == null) {
+            template = new Template(file.getName(), new StringReader(source), STRING_CONFIGURATION);
+            // Older revisions of the file are never used again
+            synchronized (FILE_TEMPLATES) {
+                FILE_TEMPLATES.keySet().removeIf(cachedKey -> cachedKey.startsWith(file.getPath() + "\n"));
+                FILE_TEMPLATES.put(key, template);
+            }
+        }
+        return template;
+    }
+
+    static Template getTemplate(String name, String source) throws IOException {
+        Template template = STRING_TEMPLATES.get(source);
+        if (template == null) {
+            template = new Template(name, new StringReader(source), STRING_CONFIGURATION);
+            STRING_TEMPLATES.put(source, template);
+        }
+        return template;
+    }
+
+    private static Map<String, Template> newTemplateCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > MAX_CACHED_TEMPLATES;
+            }
+        });
+    }
+
+    private static Configuration newConfiguration() {
+        Configuration cfg = new Configuration(Configuration.VERSION_2_3_22);
+        cfg.setDefaultEncoding("UTF-8");
+        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        return cfg;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import com.edmunds.rest.databricks.DTO.workspace.ObjectInfoDTO;
+import com.edmunds.rest.databricks.DTO.workspace.ObjectTypeDTO;
+import com.edmunds.rest.databricks.service.WorkspaceService;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Deletes the notebooks under a workspace prefix that no longer exist locally, and the directories left empty.
+ * <p>
+ * The prefix is listed one directory level at a time, with the directories of a level listed concurrently.
+ * Nothing is deleted if more notebooks than the safety cap would be deleted.
+ * </p>
+ */
+public class WorkspacePruner {
+
+    private final WorkspaceService workspaceService;
+    private final Log log;
+    private final int threads;
+
+    /**
+     * WorkspacePruner constructor.
+     *
+     * @param workspaceService workspace service
+     * @param log log
+     * @param threads the number of concurrent listing and delete calls
+     */
+    public WorkspacePruner(WorkspaceService workspaceService, Log log, int threads) {
+        this.workspaceService = workspaceService;
+        this.log = log;
+        this.threads = threads;
+    }
+
+    /**
+     * Deletes the remote notebooks that are not in the local notebooks.
+     *
+     * @param prefix the workspace prefix, only objects under it are deleted
+     * @param localNotebooks the workspace paths of the local notebooks
+     * @param maxDeletes the maximum number of notebooks to delete
+     * @return the deleted notebooks and directories
+     * @throws MojoExecutionException if listing or deleting fails, or more than maxDeletes notebooks are orphaned
+     */
+    public List<String> prune(String prefix, Collection<String> localNotebooks, int maxDeletes)
+        throws MojoExecutionException {
+        Map<String, ObjectInfoDTO> remoteObjects = list(prefix);
+
+        // A directory is kept if anything beneath it is kept
+        Set<String> keptDirectories = new HashSet<>();
+        Set<String> orphanedNotebooks = new TreeSet<>();
+        for (ObjectInfoDTO remoteObject : remoteObjects.values()) {
+            if (remoteObject.getObjectType() == ObjectTypeDTO.DIRECTORY) {
+                continue;
+            }
+            if (remoteObject.getObjectType() == ObjectTypeDTO.NOTEBOOK
+                && !localNotebooks.contains(remoteObject.getPath())) {
+                orphanedNotebooks.add(remoteObject.getPath());
+            } else {
+                for (String parent = parent(remoteObject.getPath()); parent.length() > prefix.length();
+                    parent = parent(parent)) {
+                    keptDirectories.add(parent);
+                }
+            }
+        }
+        if (orphanedNotebooks.size() > maxDeletes) {
+            throw new MojoExecutionException(String.format("Refusing to delete [%s] notebooks under: [%s], more than "
+                    + "import.syncMaxDeletes [%s]. First orphaned notebooks: %s", orphanedNotebooks.size(), prefix,
+                maxDeletes, orphanedNotebooks.stream().limit(10).collect(Collectors.toList())));
+        }
+
+        // Directories that are not kept are deleted whole, from the topmost one
+        List<String> deletes = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ObjectInfoDTO remoteObject : remoteObjects.values()) {
+            String path = remoteObject.getPath();
+            String parent = parent(path);
+            if (parent.length() > prefix.length() && !keptDirectories.contains(parent)) {
+                continue;
+            }
+            boolean directory = remoteObject.getObjectType() == ObjectTypeDTO.DIRECTORY;
+            if (directory ? !keptDirectories.contains(path) : orphanedNotebooks.contains(path)) {
+                deletes.add(path);
+                tasks.add(() -> {
+                    log.info(String.format("deleting orphaned %s: [%s]", directory ? "directory" : "notebook", path));
+                    workspaceService.delete(path, directory);
+                    return null;
+                });
+            }
+        }
+        ConcurrencyUtils.invokeAll(tasks, threads, "delete orphaned notebooks");
+        log.info(String.format("Deleted [%s] orphaned notebooks under: [%s], removing %s", orphanedNotebooks.size(),
+            prefix, deletes));
+        return deletes;
+    }
+
+    private Map<String, ObjectInfoDTO> list(String prefix) throws MojoExecutionException {
+        Map<String, ObjectInfoDTO> remoteObjects = new TreeMap<>();
+        List<String> level = new ArrayList<>();
+        level.add(prefix);
+        while (!level.isEmpty()) {
+            List<Callable<ObjectInfoDTO[]>> tasks = new ArrayList<>();
+            for (String directory : level) {
+                tasks.add(() -> workspaceService.listStatus(URLEncoder.encode(directory, "UTF-8")));
+            }
+            List<String> nextLevel = new ArrayList<>();
+            for (ObjectInfoDTO[] children : ConcurrencyUtils.invokeAll(tasks, threads, "list workspace")) {
+                if (children == null) {
+                    continue;
+                }
+                for (ObjectInfoDTO child : children) {
+                    remoteObjects.put(child.getPath(), child);
+                    if (child.getObjectType() == ObjectTypeDTO.DIRECTORY) {
+                        nextLevel.add(child.getPath());
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return remoteObjects;
+    }
+
+    private static String parent(String path) {
+        return StringUtils.substringBeforeLast(path, "/");
+    }
+}
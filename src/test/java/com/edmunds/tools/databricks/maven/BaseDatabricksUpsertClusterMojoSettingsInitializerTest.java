@@ -1,5 +1,7 @@
 package com.edmunds.tools.databricks.maven;
 
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+
 import com.edmunds.rest.databricks.DTO.UpsertClusterDTO;
 import com.edmunds.tools.databricks.maven.util.EnvironmentDTOSupplier;
 import com.edmunds.tools.databricks.maven.util.SettingsInitializer;
@@ -39,7 +41,9 @@ public class BaseDatabricksUpsertClusterMojoSettingsInitializerTest extends Data
         assertEquals(targetDTO.getNumWorkers(), defaultSettingsDTO.getNumWorkers());
         assertEquals(targetDTO.getArtifactPaths(), Collections.emptyList());
         assertEquals(targetDTO.getAutoTerminationMinutes(), defaultSettingsDTO.getAutoTerminationMinutes());
-        assertEquals(targetDTO.getAwsAttributes(), defaultSettingsDTO.getAwsAttributes());
+        // defaults are copied rather than shared, so compare their content
+        assertEquals(OBJECT_MAPPER.valueToTree(targetDTO.getAwsAttributes()),
+            OBJECT_MAPPER.valueToTree(defaultSettingsDTO.getAwsAttributes()));
         assertNull(targetDTO.getClusterLogConf());
         assertNull(targetDTO.getCustomTags());
         assertEquals(targetDTO.getDriverNodeTypeId(), defaultSettingsDTO.getDriverNodeTypeId());
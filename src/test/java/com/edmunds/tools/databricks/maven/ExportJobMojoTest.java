@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+import com.edmunds.rest.databricks.DTO.JobsDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.regex.PatternSyntaxException;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ExportJobMojo}.
+ */
+public class ExportJobMojoTest extends BaseDatabricksMojoTest {
+
+    private ExportJobMojo underTest = new ExportJobMojo();
+    private File exportJobDirectory;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        super.init();
+
+        exportJobDirectory = Files.createTempDirectory("exported-jobs").toFile();
+        underTest.setDatabricksServiceFactory(databricksServiceFactory);
+        underTest.setExportJobDirectory(exportJobDirectory);
+    }
+
+    @AfterMethod
+    public void cleanUp() throws Exception {
+        FileUtils.deleteDirectory(exportJobDirectory);
+    }
+
+    @Test
+    public void testExecute_globWritesOneFilePerJob() throws Exception {
+        JobDTO first = createJobDTO("team/first-job", 1L);
+        JobDTO second = createJobDTO("team/second-job", 2L);
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(new JobDTO[]{first, second, createJobDTO("other/job", 3L)});
+        when(jobService.listAllJobs()).thenReturn(jobsDTO);
+        underTest.setJobName("team/*");
+
+        underTest.execute();
+
+        assertThat(exportJobDirectory.list(), containsInAnyOrder("team_first-job.json", "team_second-job.json"));
+        JobSettingsDTO[] exported = OBJECT_MAPPER.readValue(
+            new File(exportJobDirectory, "team_first-job.json"), JobSettingsDTO[].class);
+        assertThat(exported[0].getName(), is("team/first-job"));
+        // the listed jobs already have their settings
+        verify(jobService, never()).getJob(anyLong());
+    }
+
+    @Test
+    public void testExecute_invalidRegex() throws Exception {
+        underTest.setJobNameRegex("team/(");
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), is("Invalid jobNameRegex: [team/(]"));
+            assertThat(e.getCause(), instanceOf(PatternSyntaxException.class));
+        }
+    }
+
+    private JobDTO createJobDTO(String jobName, long jobId) {
+        JobSettingsDTO settingsDTO = new JobSettingsDTO();
+        settingsDTO.setName(jobName);
+        JobDTO jobDTO = new JobDTO();
+        jobDTO.setJobId(jobId);
+        jobDTO.setSettings(settingsDTO);
+        return jobDTO;
+    }
+}
@@ -16,16 +16,35 @@
 
 package com.edmunds.tools.databricks.maven;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
 
 import com.edmunds.rest.databricks.DTO.workspace.ExportFormatDTO;
 import com.edmunds.rest.databricks.DTO.workspace.LanguageDTO;
+import com.edmunds.rest.databricks.DTO.workspace.ObjectInfoDTO;
+import com.edmunds.rest.databricks.DTO.workspace.ObjectTypeDTO;
+import com.edmunds.rest.databricks.DatabricksRestException;
 import com.edmunds.rest.databricks.request.ImportWorkspaceRequest;
 import com.google.common.collect.Maps;
 import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Map;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.mockito.ArgumentMatcher;
 import org.testng.annotations.BeforeClass;
@@ -48,7 +67,7 @@ public class ImportWorkspaceMojoTest extends DatabricksMavenPluginTestHarness {
 
     @Test
     public void execute_whenDefaultPrefixIsSet_importsWorkspace() throws Exception {
-        ImportWorkspaceMojo underTest = getNoOverridesMojo(GOAL);
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
         underTest.setThreads(1);
 
         File workspacePath = new File(this.getClass().getResource("/notebooks").getPath());
@@ -81,9 +100,25 @@ public class ImportWorkspaceMojoTest extends DatabricksMavenPluginTestHarness {
         underTest.execute();
     }
 
+    @Test
+    public void execute_whenGroupIdHasDots_validatesLocalPath() throws Exception {
+        File workspacePath = Files.createTempDirectory("notebooks").toFile();
+        FileUtils.writeStringToFile(new File(workspacePath, "data.etl/mycoolartifact/x/myFile.sql"),
+                "select 1", StandardCharsets.UTF_8);
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL, "_dotted_group"));
+        underTest.setThreads(1);
+        underTest.validate = true;
+        underTest.setSourceWorkspacePath(workspacePath);
+
+        underTest.execute();
+
+        verify(workspaceService).importWorkspace(
+                argThat(getMatcher("/data/etl/mycoolartifact/x/myFile", LanguageDTO.SQL, "select 1")));
+    }
+
     @Test
     public void execute_whenDefaultPrefixIsSetAndMatchesGroupId_importsWorkspace() throws Exception {
-        ImportWorkspaceMojo underTest = getOverridesMojo(GOAL);
+        ImportWorkspaceMojo underTest = withTempManifest(getOverridesMojo(GOAL));
         underTest.setThreads(1);
 
         File workspacePath = new File(this.getClass().getResource("/notebooks")
@@ -102,6 +137,201 @@ public class ImportWorkspaceMojoTest extends DatabricksMavenPluginTestHarness {
                 getMatcher("/test/mycoolartifact/test2/test3/myFile", LanguageDTO.SCALA, "println(\"scala rocks\")")));
     }
 
+    @Test
+    public void execute_createsEachLeafDirectoryOnce() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+
+        underTest.execute();
+
+        verify(workspaceService).mkdirs("/test/mycoolartifact/test1");
+        verify(workspaceService).mkdirs("/test/mycoolartifact/test2/test3");
+        verify(workspaceService, never()).mkdirs("/test/mycoolartifact/test2");
+    }
+
+    @Test
+    public void execute_whenImportsFail_attemptsAllAndReportsFailures() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(4);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        doThrow(new IOException("rate limited")).when(workspaceService).importWorkspace(
+                argThat(getMatcher("/test/mycoolartifact/test1/myFile", LanguageDTO.SQL, "select * from mytable")));
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(),
+                    is("Failed to import [1] of [3] notebooks: [/test/mycoolartifact/test1/myFile]"));
+            assertThat(e.getCause().getMessage(), is("rate limited"));
+        }
+        verify(workspaceService, times(3)).importWorkspace(any(ImportWorkspaceRequest.class));
+    }
+
+    @Test
+    public void execute_whenNotebooksAreUnchanged_skipsThem() throws Exception {
+        File workspacePath = Files.createTempDirectory("notebooks").toFile();
+        FileUtils.copyDirectory(new File(this.getClass().getResource("/notebooks").getPath()), workspacePath);
+        File manifest = new File(workspacePath, "import-manifest.json");
+
+        for (int i = 0; i < 2; i++) {
+            ImportWorkspaceMojo underTest = getNoOverridesMojo(GOAL);
+            underTest.setThreads(1);
+            underTest.importManifest = manifest;
+            underTest.importIncremental = true;
+            underTest.setSourceWorkspacePath(workspacePath);
+            underTest.execute();
+        }
+        verify(workspaceService, times(3)).importWorkspace(any(ImportWorkspaceRequest.class));
+
+        FileUtils.writeStringToFile(new File(workspacePath, "test/mycoolartifact/test1/myFile.sql"),
+                "select 1", StandardCharsets.UTF_8);
+        ImportWorkspaceMojo underTest = getNoOverridesMojo(GOAL);
+        underTest.setThreads(1);
+        underTest.importManifest = manifest;
+        underTest.importIncremental = true;
+        underTest.setSourceWorkspacePath(workspacePath);
+        underTest.execute();
+
+        verify(workspaceService, times(4)).importWorkspace(any(ImportWorkspaceRequest.class));
+        verify(workspaceService).importWorkspace(
+                argThat(getMatcher("/test/mycoolartifact/test1/myFile", LanguageDTO.SQL, "select 1")));
+    }
+
+    @Test
+    public void execute_whenSyncIsSet_deletesOrphanedNotebooks() throws Exception {
+        ImportWorkspaceMojo underTest = getSyncMojo(10);
+
+        underTest.execute();
+
+        verify(workspaceService).delete("/test/mycoolartifact/stale", false);
+        verify(workspaceService).delete("/test/mycoolartifact/old", true);
+        verify(workspaceService, times(2)).delete(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void execute_whenSyncWouldDeleteTooMany_deletesNothing() throws Exception {
+        ImportWorkspaceMojo underTest = getSyncMojo(1);
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("Refusing to delete [2] notebooks"));
+        }
+        verify(workspaceService, never()).delete(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void execute_whenArchiveIsSetOnFirstDeploy_importsOneArchive() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        underTest.importArchive = true;
+        DatabricksRestException notFound = mock(DatabricksRestException.class);
+        when(notFound.getMessage()).thenReturn("RESOURCE_DOES_NOT_EXIST: Path (/test/mycoolartifact) doesn't exist.");
+        when(workspaceService.listStatus(URLEncoder.encode("/test/mycoolartifact", "UTF-8"))).thenThrow(notFound);
+
+        underTest.execute();
+
+        verify(workspaceService).mkdirs("/test");
+        verify(workspaceService, times(1)).importWorkspace(any(ImportWorkspaceRequest.class));
+        verify(workspaceService, never()).importWorkspace(
+                argThat(getMatcher("/test/mycoolartifact/test1/myFile", LanguageDTO.SQL, "select * from mytable")));
+    }
+
+    @Test
+    public void execute_whenArchiveIsSetAndPrefixExists_importsEachNotebook() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        underTest.importArchive = true;
+
+        underTest.execute();
+
+        verify(workspaceService, times(3)).importWorkspace(any(ImportWorkspaceRequest.class));
+    }
+
+    @Test
+    public void execute_whenArchiveIsSetAndNotebooksAreOutsidePrefix_importsEachNotebook() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        underTest.setWorkspacePrefix("test/mycoolartifact/test2");
+        underTest.importArchive = true;
+
+        underTest.execute();
+
+        // one request per notebook, the archive would only hold the two notebooks under the prefix
+        verify(workspaceService, times(3)).importWorkspace(any(ImportWorkspaceRequest.class));
+        verify(workspaceService).importWorkspace(
+                argThat(getMatcher("/test/mycoolartifact/test1/myFile", LanguageDTO.SQL, "select * from mytable")));
+    }
+
+    @Test
+    public void execute_whenArchiveIsSetAndPrefixCanNotBeListed_fails() throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        underTest.importArchive = true;
+        DatabricksRestException rateLimited = mock(DatabricksRestException.class);
+        when(rateLimited.getMessage()).thenReturn("REQUEST_LIMIT_EXCEEDED");
+        when(workspaceService.listStatus(URLEncoder.encode("/test/mycoolartifact", "UTF-8")))
+                .thenThrow(rateLimited);
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("REQUEST_LIMIT_EXCEEDED"));
+        }
+        verify(workspaceService, never()).importWorkspace(any(ImportWorkspaceRequest.class));
+    }
+
+    /**
+     * Gives the mojo a manifest of its own, so notebooks imported by another test are not skipped.
+     */
+    private ImportWorkspaceMojo withTempManifest(ImportWorkspaceMojo underTest) throws IOException {
+        File manifest = File.createTempFile("import-manifest", ".json");
+        manifest.delete();
+        manifest.deleteOnExit();
+        underTest.importManifest = manifest;
+        return underTest;
+    }
+
+    private ImportWorkspaceMojo getSyncMojo(int syncMaxDeletes) throws Exception {
+        ImportWorkspaceMojo underTest = withTempManifest(getNoOverridesMojo(GOAL));
+        underTest.setThreads(1);
+        underTest.setSourceWorkspacePath(new File(this.getClass().getResource("/notebooks").getPath()));
+        underTest.sync = true;
+        underTest.syncMaxDeletes = syncMaxDeletes;
+
+        String basePath = "/test/mycoolartifact";
+        mockListStatus(basePath, buildObjectInfoDTO(basePath + "/test1", ObjectTypeDTO.DIRECTORY),
+                buildObjectInfoDTO(basePath + "/test2", ObjectTypeDTO.DIRECTORY),
+                buildObjectInfoDTO(basePath + "/old", ObjectTypeDTO.DIRECTORY),
+                buildObjectInfoDTO(basePath + "/stale", ObjectTypeDTO.NOTEBOOK));
+        mockListStatus(basePath + "/test1", buildObjectInfoDTO(basePath + "/test1/myFile", ObjectTypeDTO.NOTEBOOK));
+        mockListStatus(basePath + "/test2", buildObjectInfoDTO(basePath + "/test2/myFile", ObjectTypeDTO.NOTEBOOK),
+                buildObjectInfoDTO(basePath + "/test2/test3", ObjectTypeDTO.DIRECTORY));
+        mockListStatus(basePath + "/test2/test3",
+                buildObjectInfoDTO(basePath + "/test2/test3/myFile", ObjectTypeDTO.NOTEBOOK));
+        mockListStatus(basePath + "/old", buildObjectInfoDTO(basePath + "/old/gone", ObjectTypeDTO.NOTEBOOK));
+        return underTest;
+    }
+
+    private void mockListStatus(String path, ObjectInfoDTO... objectInfoDTOS) throws Exception {
+        when(workspaceService.listStatus(URLEncoder.encode(path, "UTF-8"))).thenReturn(objectInfoDTOS);
+    }
+
+    private ObjectInfoDTO buildObjectInfoDTO(String path, ObjectTypeDTO objectTypeDTO) {
+        ObjectInfoDTO objectInfoDTO = new ObjectInfoDTO();
+        objectInfoDTO.setPath(path);
+        objectInfoDTO.setObjectType(objectTypeDTO);
+        return objectInfoDTO;
+    }
+
     private ImportWorkspaceRequestMatcher getMatcher(String path, LanguageDTO languageDTO, String content) {
         ImportWorkspaceRequest importWorkspaceRequest = new ImportWorkspaceRequest.ImportWorkspaceRequestBuilder(path)
                 .withFormat(ExportFormatDTO.SOURCE)
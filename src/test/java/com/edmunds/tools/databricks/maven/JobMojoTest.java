@@ -20,19 +20,41 @@ package com.edmunds.tools.databricks.maven;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.fail;
 
+import com.edmunds.rest.databricks.DTO.JobsDTO;
 import com.edmunds.rest.databricks.DTO.RunNowDTO;
 import com.edmunds.rest.databricks.DTO.RunsDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
 import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunLifeCycleStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunResultStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunStateDTO;
+import com.edmunds.tools.databricks.maven.JobMojo.JobCommand;
+import com.edmunds.tools.databricks.maven.JobMojo.JobOutcome;
+import com.edmunds.tools.databricks.maven.JobMojo.JobResult;
+import com.edmunds.tools.databricks.maven.util.RunStateTracker;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -50,6 +72,9 @@ public class JobMojoTest extends BaseDatabricksMojoTest {
         underTest.setDatabricksServiceFactory(databricksServiceFactory);
         underTest.setStreamingOnly(false);
         underTest.setEnvironment("QA");
+        underTest.setStopTimeoutSeconds(600);
+        underTest.setRunTimeoutSeconds(3600);
+        underTest.setParallelism(10);
     }
 
     @Test
@@ -110,6 +135,195 @@ public class JobMojoTest extends BaseDatabricksMojoTest {
         verify(jobService, never()).cancelRun(anyLong());
     }
 
+    @Test
+    public void testStopRun_awaitTermination_pollsOnlyCancelledRuns() throws Exception {
+        when(jobService.listRuns(eq(123L), eq(true), anyInt(), anyInt())).thenReturn(createRunsDTO());
+        RunDTO terminated = createRunsDTO().getRuns()[0];
+        RunStateDTO state = new RunStateDTO();
+        state.setLifeCycleState(RunLifeCycleStateDTO.TERMINATED);
+        terminated.setState(state);
+        when(jobService.getRun(456L)).thenReturn(terminated);
+
+        RunStateTracker runStateTracker = underTest.stopActiveRuns(123L);
+        runStateTracker.awaitTermination(10, TimeUnit.SECONDS, underTest.getLog());
+
+        assertThat(runStateTracker.hasActiveRuns(), is(false));
+        verify(jobService, times(1)).cancelRun(456L);
+        verify(jobService, times(1)).getRun(456L);
+        verify(jobService, times(1)).listRuns(eq(123L), eq(true), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testControlJob_notFound() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(new JobsDTO());
+
+        JobResult result = underTest.controlJob("missing-job", underTest.loadJobIndex(name -> true));
+
+        assertThat(result.getOutcome(), is(JobOutcome.NOT_FOUND));
+    }
+
+    @Test
+    public void testControlJob_runAndWait_notFoundFails() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(new JobsDTO());
+        underTest.setCommand(JobCommand.RUN_AND_WAIT);
+
+        JobResult result = underTest.controlJob("missing-job", underTest.loadJobIndex(name -> true));
+
+        assertThat(result.getOutcome(), is(JobOutcome.FAILED));
+        assertThat(result.getError().getMessage(), is("No job id found for: [missing-job]"));
+    }
+
+    @Test
+    public void testControlJob_runAndWait_succeeds() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO("test-job", 123L));
+        when(jobService.listRuns(eq(123L), eq(true), anyInt(), anyInt())).thenReturn(new RunsDTO());
+        RunNowDTO runNowDTO = createRunNowDTO();
+        runNowDTO.setRunId(789L);
+        when(jobService.runJobNow(123L)).thenReturn(runNowDTO);
+        RunDTO finished = new RunDTO();
+        finished.setRunId(789L);
+        RunStateDTO state = new RunStateDTO();
+        state.setLifeCycleState(RunLifeCycleStateDTO.TERMINATED);
+        state.setResultState(RunResultStateDTO.SUCCESS);
+        finished.setState(state);
+        when(jobService.getRun(789L)).thenReturn(finished);
+        underTest.setCommand(JobCommand.RUN_AND_WAIT);
+
+        JobResult result = underTest.controlJob("test-job", underTest.loadJobIndex(name -> true));
+
+        assertThat(result.getOutcome(), is(JobOutcome.SUCCEEDED));
+        verify(jobService, times(1)).getRun(789L);
+        verify(jobService, never()).cancelRun(anyLong());
+    }
+
+    @Test
+    public void testControlJob_failureIsReturned() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO("test-job", 123L));
+        when(jobService.listRuns(eq(123L), eq(true), anyInt(), anyInt())).thenReturn(createRunsDTO());
+        doThrow(new IOException("boom")).when(jobService).cancelRun(456L);
+        underTest.setCommand(JobCommand.STOP);
+
+        JobResult result = underTest.controlJob("test-job", underTest.loadJobIndex(name -> true));
+
+        assertThat(result.getOutcome(), is(JobOutcome.FAILED));
+        assertThat(result.getError().getMessage(), containsString("Could not control job: [123]"));
+    }
+
+    @Test
+    public void testAwaitRun_failedRun() throws Exception {
+        RunNowDTO runNowDTO = createRunNowDTO();
+        runNowDTO.setRunId(789L);
+        RunDTO finished = new RunDTO();
+        finished.setRunId(789L);
+        RunStateDTO state = new RunStateDTO();
+        state.setLifeCycleState(RunLifeCycleStateDTO.TERMINATED);
+        state.setResultState(RunResultStateDTO.FAILED);
+        finished.setState(state);
+        when(jobService.getRun(789L)).thenReturn(finished);
+
+        try {
+            underTest.awaitRun(123L, runNowDTO);
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("result: [FAILED]"));
+            return;
+        }
+        fail();
+    }
+
+    @Test
+    public void testExecute_controlsJobsConcurrently() throws Exception {
+        File jobFile = File.createTempFile("job-settings", ".json");
+        jobFile.deleteOnExit();
+        StringBuilder jobs = new StringBuilder("[");
+        for (String name : new String[]{"stream-a", "stream-b", "stream-c", "stream-missing"}) {
+            jobs.append(jobs.length() > 1 ? ", " : "").append("{\"name\": \"test/mycoolartifact/").append(name)
+                .append("\", \"email_notifications\": {\"on_failure\": [\"team@example.com\"]}}");
+        }
+        FileUtils.writeStringToFile(jobFile, jobs.append("]").toString(), StandardCharsets.UTF_8);
+        underTest.setProject(project);
+        underTest.databricksRepo = "bucket-name";
+        underTest.databricksRepoKey = "repo-key";
+        underTest.prefixToStrip = "com\\.edmunds\\.";
+        underTest.setDbJobFile(jobFile);
+        underTest.setCommand(JobCommand.START);
+        underTest.setParallelism(2);
+        List<String> infoMessages = new ArrayList<>();
+        underTest.setLog(new SystemStreamLog() {
+            @Override
+            public void info(CharSequence content) {
+                synchronized (infoMessages) {
+                    infoMessages.add(content.toString());
+                }
+            }
+        });
+
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(new JobDTO[]{
+            createJobsDTO("test/mycoolartifact/stream-a", 1L).getJobs()[0],
+            createJobsDTO("test/mycoolartifact/stream-b", 2L).getJobs()[0],
+            createJobsDTO("test/mycoolartifact/stream-c", 3L).getJobs()[0]});
+        when(jobService.listAllJobs()).thenReturn(jobsDTO);
+        when(jobService.listRuns(eq(1L), eq(true), anyInt(), anyInt())).thenReturn(new RunsDTO());
+        when(jobService.listRuns(eq(2L), eq(true), anyInt(), anyInt())).thenReturn(new RunsDTO());
+        // An active run makes START fail for this job only
+        when(jobService.listRuns(eq(3L), eq(true), anyInt(), anyInt())).thenReturn(createRunsDTO());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(jobService.runJobNow(anyLong())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } finally {
+                running.decrementAndGet();
+            }
+            return createRunNowDTO();
+        });
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), is("Command: [START] failed for jobs: [test/mycoolartifact/stream-c]"));
+            assertThat(e.getCause().getMessage(), is("Could not control job: [3] with command: [START]"));
+            assertThat(e.getCause().getCause().getMessage(), is("Job: [3] already has an existing active run."));
+        }
+
+        assertThat(infoMessages,
+            hasItem("Command: [START] results: {SUCCEEDED=2, NOT_FOUND=1, FAILED=1}"));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+        verify(jobService, times(1)).listAllJobs();
+        verify(jobService, times(1)).runJobNow(1L);
+        verify(jobService, times(1)).runJobNow(2L);
+        verify(jobService, never()).runJobNow(3L);
+    }
+
+    @Test
+    public void testAwaitRun_timeoutCancelsRun() throws Exception {
+        RunNowDTO runNowDTO = createRunNowDTO();
+        runNowDTO.setRunId(789L);
+        underTest.setRunTimeoutSeconds(0);
+
+        try {
+            underTest.awaitRun(123L, runNowDTO);
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("did not finish within [0] seconds"));
+        }
+
+        verify(jobService, times(1)).cancelRun(789L);
+    }
+
+    private JobsDTO createJobsDTO(String jobName, long jobId) {
+        JobSettingsDTO settingsDTO = new JobSettingsDTO();
+        settingsDTO.setName(jobName);
+        JobDTO jobDTO = new JobDTO();
+        jobDTO.setJobId(jobId);
+        jobDTO.setSettings(settingsDTO);
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(new JobDTO[]{jobDTO});
+        return jobsDTO;
+    }
+
     private RunNowDTO createRunNowDTO() {
         RunNowDTO runNowDTO = new RunNowDTO();
         runNowDTO.setNumberInJob(1);
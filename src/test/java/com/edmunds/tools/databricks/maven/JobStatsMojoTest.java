@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.edmunds.rest.databricks.DTO.JobsDTO;
+import com.edmunds.rest.databricks.DTO.RunsDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunLifeCycleStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunResultStateDTO;
+import com.edmunds.rest.databricks.DTO.jobs.RunStateDTO;
+import com.edmunds.tools.databricks.maven.model.JobStats;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link JobStatsMojo}.
+ */
+public class JobStatsMojoTest extends BaseDatabricksMojoTest {
+
+    private JobStatsMojo underTest = new JobStatsMojo();
+
+    @BeforeMethod
+    public void init() throws Exception {
+        super.init();
+
+        underTest.setDatabricksServiceFactory(databricksServiceFactory);
+        underTest.setJobNamePrefix("team/");
+    }
+
+    @Test
+    public void testCreateReport() throws Exception {
+        JobSettingsDTO settingsDTO = new JobSettingsDTO();
+        settingsDTO.setName("team/job");
+        JobDTO jobDTO = new JobDTO();
+        jobDTO.setJobId(123L);
+        jobDTO.setSettings(settingsDTO);
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(new JobDTO[]{jobDTO});
+        when(jobService.listAllJobs()).thenReturn(jobsDTO);
+
+        // most recent first: 10 slow runs, 10 fast runs, 5 failures
+        List<RunDTO> runs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            runs.add(createRunDTO(RunResultStateDTO.SUCCESS, 2000));
+        }
+        for (int i = 0; i < 10; i++) {
+            runs.add(createRunDTO(RunResultStateDTO.SUCCESS, 1000));
+        }
+        for (int i = 0; i < 5; i++) {
+            runs.add(createRunDTO(RunResultStateDTO.FAILED, 10));
+        }
+        RunsDTO firstPage = new RunsDTO();
+        firstPage.setRuns(runs.toArray(new RunDTO[0]));
+        when(jobService.listRuns(eq(123L), eq(false), anyInt(), anyInt())).thenReturn(new RunsDTO());
+        when(jobService.listRuns(123L, false, 0, JobStatsMojo.RUNS_PAGE_SIZE)).thenReturn(firstPage);
+
+        List<JobStats> report = underTest.createReport();
+
+        assertThat(report.size(), is(1));
+        JobStats stats = report.get(0);
+        assertThat(stats.getRuns(), is(25));
+        assertThat(stats.getFailureRate(), closeTo(0.2, 0.0001));
+        assertThat(stats.getExecutionDuration().getP50(), is(1000L));
+        assertThat(stats.getTrendRatio(), closeTo(2.0, 0.0001));
+        assertThat(stats.isRegressed(), is(true));
+        // the full first page is followed by an empty one
+        verify(jobService, times(2)).listRuns(eq(123L), eq(false), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testCreateReport_canceledRunsAreNotFailures() throws Exception {
+        JobSettingsDTO settingsDTO = new JobSettingsDTO();
+        settingsDTO.setName("team/stream-job");
+        JobDTO jobDTO = new JobDTO();
+        jobDTO.setJobId(123L);
+        jobDTO.setSettings(settingsDTO);
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(new JobDTO[]{jobDTO});
+        when(jobService.listAllJobs()).thenReturn(jobsDTO);
+
+        List<RunDTO> runs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            runs.add(createRunDTO(RunResultStateDTO.CANCELED, 1000));
+        }
+        runs.add(createRunDTO(RunResultStateDTO.SUCCESS, 1000));
+        runs.add(createRunDTO(RunResultStateDTO.TIMEDOUT, 1000));
+        RunDTO internalError = createRunDTO(null, 0);
+        internalError.getState().setLifeCycleState(RunLifeCycleStateDTO.INTERNAL_ERROR);
+        runs.add(internalError);
+        RunDTO skipped = createRunDTO(null, 0);
+        skipped.getState().setLifeCycleState(RunLifeCycleStateDTO.SKIPPED);
+        runs.add(skipped);
+        RunsDTO page = new RunsDTO();
+        page.setRuns(runs.toArray(new RunDTO[0]));
+        when(jobService.listRuns(123L, false, 0, JobStatsMojo.RUNS_PAGE_SIZE)).thenReturn(page);
+
+        JobStats stats = underTest.createReport().get(0);
+
+        assertThat(stats.getRuns(), is(10));
+        assertThat(stats.getCanceled(), is(6));
+        // one success against a time out and an internal error
+        assertThat(stats.getFailureRate(), closeTo(2 / 3.0, 0.0001));
+    }
+
+    @Test
+    public void testListRecentRuns_withoutRuns() throws Exception {
+        when(jobService.listRuns(123L, false, 0, JobStatsMojo.RUNS_PAGE_SIZE)).thenReturn(new RunsDTO());
+
+        assertThat(underTest.listRecentRuns(123L).size(), is(0));
+    }
+
+    @Test
+    public void testListRecentRuns_stopsAtShortPage() throws Exception {
+        RunsDTO shortPage = new RunsDTO();
+        shortPage.setRuns(new RunDTO[]{createRunDTO(RunResultStateDTO.SUCCESS, 1000)});
+        when(jobService.listRuns(123L, false, 0, JobStatsMojo.RUNS_PAGE_SIZE)).thenReturn(shortPage);
+
+        List<RunDTO> runs = underTest.listRecentRuns(123L);
+
+        assertThat(runs.size(), is(1));
+        verify(jobService, times(1)).listRuns(eq(123L), eq(false), anyInt(), anyInt());
+    }
+
+    private RunDTO createRunDTO(RunResultStateDTO resultState, long executionDuration) {
+        RunStateDTO state = new RunStateDTO();
+        state.setLifeCycleState(RunLifeCycleStateDTO.TERMINATED);
+        state.setResultState(resultState);
+        RunDTO runDTO = new RunDTO();
+        runDTO.setState(state);
+        runDTO.setExecutionDuration(executionDuration);
+        return runDTO;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.edmunds.rest.databricks.DTO.JobsDTO;
+import com.edmunds.rest.databricks.DTO.clusters.ClusterInfoDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.rest.databricks.DTO.libraries.ClusterLibraryStatusesDTO;
+import com.edmunds.rest.databricks.DTO.libraries.LibraryDTO;
+import com.edmunds.rest.databricks.DTO.libraries.LibraryFullStatusDTO;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan.ActionType;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan.PlanAction;
+import com.edmunds.tools.databricks.maven.model.DeploymentPlan.ResourceType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link PlanMojo}.
+ */
+public class PlanMojoTest extends DatabricksMavenPluginTestHarness {
+
+    private static final String GOAL = "plan";
+
+    private PlanMojo underTest;
+
+    @BeforeClass
+    public void initClass() throws Exception {
+        super.setUp();
+    }
+
+    @BeforeMethod
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+        underTest = getNoOverridesMojo(GOAL);
+    }
+
+    @Test
+    public void testCreatePlan_newJob() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO());
+
+        DeploymentPlan plan = underTest.createPlan();
+
+        assertThat(plan.getActions().size(), is(1));
+        assertThat(plan.getActions().get(0).getAction(), is(ActionType.CREATE));
+        assertThat(plan.getActions().get(0).getName(), is("unit-test-group/unit-test-artifact"));
+        verify(jobService, times(1)).listAllJobs();
+    }
+
+    @Test
+    public void testCreatePlan_unchangedAndOrphanedJobs() throws Exception {
+        JobSettingsDTO rendered = underTest.getSettingsUtils().buildSettingsDTOsWithDefaults().get(0);
+        JobSettingsDTO orphan = new JobSettingsDTO();
+        orphan.setName("unit-test-group/unit-test-artifact/removed-job");
+        JobSettingsDTO otherProject = new JobSettingsDTO();
+        otherProject.setName("other-group/other-artifact");
+        when(jobService.listAllJobs()).thenReturn(
+            createJobsDTO(createJobDTO(rendered, 1L), createJobDTO(orphan, 2L), createJobDTO(otherProject, 3L)));
+
+        DeploymentPlan plan = underTest.createPlan();
+
+        assertThat(plan.getCounts().get(ActionType.NO_OP), is(1));
+        assertThat(plan.getCounts().get(ActionType.ORPHAN), is(1));
+        assertThat(plan.hasChanges(), is(false));
+    }
+
+    @Test
+    public void testCreatePlan_newAndOrphanedClusters() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO());
+        underTest.setDbClusterFile(createClusterFile());
+        when(clusterService.list()).thenReturn(new ClusterInfoDTO[]{
+            createClusterInfoDTO("2", "unit-test-group/unit-test-artifact/old-cluster"),
+            createClusterInfoDTO("3", "other-group/other-artifact/cluster")});
+
+        DeploymentPlan plan = underTest.createPlan();
+
+        PlanAction cluster = getAction(plan, ResourceType.CLUSTER, "unit-test-group/unit-test-artifact/cluster");
+        assertThat(cluster.getAction(), is(ActionType.CREATE));
+        PlanAction orphan = getAction(plan, ResourceType.CLUSTER, "unit-test-group/unit-test-artifact/old-cluster");
+        assertThat(orphan.getAction(), is(ActionType.ORPHAN));
+        assertThat(orphan.getId(), is("2"));
+        // only jars are installed
+        assertThat(getAction(plan, ResourceType.LIBRARY, "dbfs:/Libs/jars/app.jar").getAction(),
+            is(ActionType.CREATE));
+        assertThat(plan.getCounts().get(ActionType.CREATE), is(3));
+        assertThat(plan.getActions().size(), is(4));
+        verify(clusterService, times(1)).list();
+    }
+
+    @Test
+    public void testCreatePlan_libraries() throws Exception {
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO());
+        underTest.setDbClusterFile(createClusterFile());
+        when(clusterService.list()).thenReturn(new ClusterInfoDTO[]{
+            createClusterInfoDTO("1", "unit-test-group/unit-test-artifact/cluster")});
+        when(libraryService.allClusterStatuses()).thenReturn(new ClusterLibraryStatusesDTO[]{
+            createClusterLibraryStatusesDTO("1", "dbfs:/Libs/jars/app.jar", "dbfs:/Libs/jars/old.jar")});
+
+        DeploymentPlan plan = underTest.createPlan();
+
+        assertThat(getAction(plan, ResourceType.LIBRARY, "dbfs:/Libs/jars/app.jar").getAction(),
+            is(ActionType.NO_OP));
+        PlanAction removed = getAction(plan, ResourceType.LIBRARY, "dbfs:/Libs/jars/old.jar");
+        assertThat(removed.getAction(), is(ActionType.REMOVE));
+        assertThat(removed.getId(), is("1"));
+        assertThat(plan.hasChanges(), is(true));
+        verify(libraryService, times(1)).allClusterStatuses();
+    }
+
+    private File createClusterFile() throws IOException {
+        File clusterFile = File.createTempFile("plan-cluster-settings", ".json");
+        clusterFile.deleteOnExit();
+        FileUtils.writeStringToFile(clusterFile, "[{\"cluster_name\": \"unit-test-group/unit-test-artifact/cluster\", "
+            + "\"num_workers\": 1, \"artifact_paths\": [\"dbfs:/Libs/jars/app.jar\", \"dbfs:/Libs/wars/app.war\"]}]",
+            StandardCharsets.UTF_8);
+        return clusterFile;
+    }
+
+    private PlanAction getAction(DeploymentPlan plan, ResourceType resourceType, String name) {
+        return plan.getActions().stream()
+            .filter(action -> action.getResourceType() == resourceType && action.getName().equals(name))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError(String.format("No %s action for: [%s]", resourceType, name)));
+    }
+
+    private ClusterInfoDTO createClusterInfoDTO(String clusterId, String clusterName) {
+        ClusterInfoDTO clusterInfoDTO = new ClusterInfoDTO();
+        clusterInfoDTO.setClusterId(clusterId);
+        clusterInfoDTO.setClusterName(clusterName);
+        return clusterInfoDTO;
+    }
+
+    private ClusterLibraryStatusesDTO createClusterLibraryStatusesDTO(String clusterId, String... jars) {
+        LibraryFullStatusDTO[] fullStatuses = new LibraryFullStatusDTO[jars.length];
+        for (int i = 0; i < jars.length; i++) {
+            LibraryDTO libraryDTO = new LibraryDTO();
+            libraryDTO.setJar(jars[i]);
+            fullStatuses[i] = new LibraryFullStatusDTO();
+            fullStatuses[i].setLibrary(libraryDTO);
+        }
+        ClusterLibraryStatusesDTO statusesDTO = new ClusterLibraryStatusesDTO();
+        statusesDTO.setClusterId(clusterId);
+        statusesDTO.setLibraryFullStatuses(fullStatuses);
+        return statusesDTO;
+    }
+
+    private JobsDTO createJobsDTO(JobDTO... jobDTOs) {
+        JobsDTO jobsDTO = new JobsDTO();
+        jobsDTO.setJobs(jobDTOs);
+        return jobsDTO;
+    }
+
+    private JobDTO createJobDTO(JobSettingsDTO settingsDTO, long jobId) {
+        JobDTO jobDTO = new JobDTO();
+        jobDTO.setSettings(settingsDTO);
+        jobDTO.setJobId(jobId);
+        return jobDTO;
+    }
+}
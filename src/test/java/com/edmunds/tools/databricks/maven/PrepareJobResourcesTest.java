@@ -17,9 +17,13 @@
 package com.edmunds.tools.databricks.maven;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.testng.annotations.BeforeClass;
@@ -51,15 +55,46 @@ public class PrepareJobResourcesTest extends DatabricksMavenPluginTestHarness {
             ".jar";
 
         String lines = FileUtils.readFileToString(underTest.environmentDTOFileOutput, StandardCharsets.UTF_8);
-        assertThat(lines, containsString("  \"groupId\" : \"unit-test-group\","));
-        assertThat(lines, containsString("  \"artifactId\" : \"unit-test-artifact\","));
-        assertThat(lines, containsString("  \"version\" : \"1.0.0-SNAPSHOT\","));
-        assertThat(lines, containsString("  \"environment\" : null,"));
-        assertThat(lines, containsString("  \"groupWithoutCompany\" : \"unit-test-group\""));
-        assertThat(lines, containsString("  \"databricks.repo\" : \"my-bucket/artifacts\""));
-        assertThat(lines, containsString("  \"databricksRepo\" : \"my-bucket/artifacts\""));
-        assertThat(lines, containsString("  \"databricks.repo.key\" : \"" + key + "\""));
-        assertThat(lines, containsString("  \"databricksRepoKey\" : \"" + key + "\""));
+        assertThat(lines, containsString("\"groupId\":\"unit-test-group\","));
+        assertThat(lines, containsString("\"artifactId\":\"unit-test-artifact\","));
+        assertThat(lines, containsString("\"version\":\"1.0.0-SNAPSHOT\","));
+        assertThat(lines, containsString("\"environment\":null,"));
+        assertThat(lines, containsString("\"groupWithoutCompany\":\"unit-test-group\""));
+        assertThat(lines, containsString("\"databricks.repo\":\"my-bucket/artifacts\""));
+        assertThat(lines, containsString("\"databricksRepo\":\"my-bucket/artifacts\""));
+        assertThat(lines, containsString("\"databricks.repo.key\":\"" + key + "\""));
+        assertThat(lines, containsString("\"databricksRepoKey\":\"" + key + "\""));
+        // Only the properties referenced by the settings templates are written
+        assertThat(lines, not(containsString("\"java.version\"")));
+        assertThat(lines, not(containsString("\n")));
+    }
+
+    @Test
+    public void executeEnvironmentDTOFile_environmentProperties_keepsListedProperties() throws Exception {
+        PrepareJobResources underTest = getNoOverridesMojo(GOAL);
+        underTest.environmentDTOFileOutput.delete();
+        underTest.environmentProperties = Collections.singletonList("java.version");
+        underTest.execute();
+
+        String lines = FileUtils.readFileToString(underTest.environmentDTOFileOutput, StandardCharsets.UTF_8);
+        assertThat(lines, containsString("\"java.version\""));
+        assertThat(lines, containsString("\"databricks.repo\""));
+        assertThat(lines, not(containsString("\"java.home\"")));
+        EnvironmentDTO environmentDTO = EnvironmentDTO.loadEnvironmentDTOFromFile(underTest.environmentDTOFileOutput);
+        assertThat(environmentDTO.getSystemProperties().getProperty("java.version"),
+            is(System.getProperty("java.version")));
+    }
+
+    @Test
+    public void executeEnvironmentDTOFile_noAutoDetect_keepsAllProperties() throws Exception {
+        PrepareJobResources underTest = getNoOverridesMojo(GOAL);
+        underTest.environmentDTOFileOutput.delete();
+        underTest.environmentPropertiesAutoDetect = false;
+        underTest.execute();
+
+        String lines = FileUtils.readFileToString(underTest.environmentDTOFileOutput, StandardCharsets.UTF_8);
+        assertThat(lines, containsString("\"java.version\""));
+        assertThat(lines, containsString("\"java.home\""));
     }
 
     @Test(expectedExceptions = MojoExecutionException.class, expectedExceptionsMessageRegExp = ".*databricksRepo.*")
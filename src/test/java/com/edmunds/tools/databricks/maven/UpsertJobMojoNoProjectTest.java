@@ -18,7 +18,6 @@ package com.edmunds.tools.databricks.maven;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
-import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.verify;
 
 import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
@@ -53,8 +52,6 @@ public class UpsertJobMojoNoProjectTest extends DatabricksMavenPluginTestHarness
     @Test
     public void execute_NoJobFile_NothingHappens() throws Exception {
         UpsertJobMojoNoProject underTest = getNoOverridesMojo(GOAL);
-        Mockito.when(jobService.getJobByName("unit-test-group/unit-test-artifact", true)).thenReturn(createJobDTO
-            ("unit-test-group/unit-test-artifact", 1));
         underTest.execute();
 
         List<JobSettingsDTO> jobSettingsDTOS = underTest.getSettingsUtils().buildSettingsDTOsWithDefaults();
@@ -79,8 +76,6 @@ public class UpsertJobMojoNoProjectTest extends DatabricksMavenPluginTestHarness
     @Test
     public void execute_whenJobFileAndTemplateExists_upsertsJob() throws Exception {
         UpsertJobMojoNoProject underTest = getOverridesMojo(GOAL, "2");
-        Mockito.when(jobService.getJobByName("dwh/inventory-databricks", true)).thenReturn(createJobDTO
-            ("dwh/inventory-databricks", 1));
 
         underTest.execute();
 
@@ -94,15 +89,13 @@ public class UpsertJobMojoNoProjectTest extends DatabricksMavenPluginTestHarness
                 ".jar"));
 
         ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
-        verify(jobService, Mockito.times(1)).upsertJob(jobCaptor.capture(), anyBoolean());
+        verify(jobService, Mockito.times(1)).createJob(jobCaptor.capture());
         assertEquals(jobSettingsDTOS.get(0), jobCaptor.getValue());
     }
 
     @Test
     public void execute_whenJobFileAndTemplateExistsAndEnvironmentIsProd_upsertsJob() throws Exception {
         UpsertJobMojoNoProject underTest = getOverridesMojo(GOAL, "-prod");
-        Mockito.when(jobService.getJobByName("dwh/inventory-databricks", true)).thenReturn(createJobDTO
-            ("dwh/inventory-databricks", 1));
 
         underTest.execute();
 
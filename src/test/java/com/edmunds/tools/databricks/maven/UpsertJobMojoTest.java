@@ -18,8 +18,11 @@ package com.edmunds.tools.databricks.maven;
 
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
-import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -27,7 +30,17 @@ import static org.mockito.Mockito.when;
 import com.edmunds.rest.databricks.DTO.JobsDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
 import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
+import com.edmunds.tools.databricks.maven.util.JobPageSource;
+import com.edmunds.tools.databricks.maven.util.ObjectMapperUtils;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -60,22 +73,65 @@ public class UpsertJobMojoTest extends DatabricksMavenPluginTestHarness {
     @Test
     public void test_executeWithDefault() throws Exception {
         underTest = getNoOverridesMojo(GOAL);
-        Mockito.when(jobService.getJobByName("unit-test-group/unit-test-artifact", true)).thenReturn(createJobDTO
-            ("unit-test-group/unit-test-artifact", 1));
         underTest.execute();
 
         List<JobSettingsDTO> jobSettingsDTOs = underTest.getSettingsUtils().buildSettingsDTOsWithDefaults();
         assert (jobSettingsDTOs.size() == 1);
         ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
-        verify(jobService, Mockito.times(1)).upsertJob(jobCaptor.capture(), anyBoolean());
+        verify(jobService, Mockito.times(1)).createJob(jobCaptor.capture());
         assertEquals(jobSettingsDTOs.get(0), jobCaptor.getValue());
     }
 
+    @Test
+    public void test_defaultsReportWrittenWithSettingsCache() throws Exception {
+        File cacheDirectory = Files.createTempDirectory("settings-cache").toFile();
+        File reportFile = new File(cacheDirectory, "defaults-report.json");
+        try {
+            for (int i = 0; i < 2; i++) {
+                underTest = getNoOverridesMojo(GOAL);
+                underTest.settingsCache = true;
+                underTest.settingsCacheDirectory = cacheDirectory;
+                underTest.defaultsReport = reportFile;
+
+                underTest.getSettingsUtils().buildSettingsDTOsWithDefaults();
+
+                // The second build would be a cache hit, if settings were cached
+                assertThat(reportFile.exists(), is(true));
+                assertThat(reportFile.delete(), is(true));
+            }
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void test_settingsCacheHitAndUnreadableCache() throws Exception {
+        File cacheDirectory = Files.createTempDirectory("settings-cache").toFile();
+        try {
+            List<List<JobSettingsDTO>> builds = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                underTest = getNoOverridesMojo(GOAL);
+                underTest.settingsCache = true;
+                underTest.settingsCacheDirectory = cacheDirectory;
+                builds.add(underTest.getSettingsUtils().buildSettingsDTOsWithDefaults());
+
+                File[] cacheFiles = cacheDirectory.listFiles((dir, name) -> name.endsWith(".json"));
+                assertThat(cacheFiles.length, is(1));
+                if (i == 1) {
+                    // A truncated cache is a miss, the settings are built again
+                    FileUtils.writeStringToFile(cacheFiles[0], "[{\"name\": ", StandardCharsets.UTF_8);
+                }
+            }
+            assertEquals(builds.get(1), builds.get(0));
+            assertEquals(builds.get(2), builds.get(0));
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
     @Test
     public void test_executeWithProjectProperties() throws Exception {
         underTest = getOverridesMojo(GOAL, "_viaProperties");
-        Mockito.when(jobService.getJobByName("unit-test-group/unit-test-artifact", true)).thenReturn(createJobDTO
-            ("unit-test-group/unit-test-artifact", 1));
         List<JobSettingsDTO> jobSettingsDTOs = underTest.getSettingsUtils().buildSettingsDTOsWithDefaults();
         underTest.execute();
         assertThat(jobSettingsDTOs.size(), is(1));
@@ -83,15 +139,13 @@ public class UpsertJobMojoTest extends DatabricksMavenPluginTestHarness {
             ("s3://projectProperty/unit-test-group/unit-test-artifact/" +
                 "1.0.0-SNAPSHOT/unit-test-artifact-1.0.0-SNAPSHOT.jar"));
         ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
-        verify(jobService, Mockito.times(1)).upsertJob(jobCaptor.capture(), anyBoolean());
+        verify(jobService, Mockito.times(1)).createJob(jobCaptor.capture());
         assertEquals(jobSettingsDTOs.get(0), jobCaptor.getValue());
     }
 
     @Test
     public void test_executeWithProjectPropertiesAndConfig() throws Exception {
         underTest = getOverridesMojo(GOAL, "_viaBothSettings");
-        Mockito.when(jobService.getJobByName("unit-test-group/unit-test-artifact", true)).thenReturn(createJobDTO
-            ("unit-test-group/unit-test-artifact", 1));
         List<JobSettingsDTO> jobSettingsDTOs = underTest.getSettingsUtils().buildSettingsDTOsWithDefaults();
         underTest.execute();
         assertThat(jobSettingsDTOs.size(), is(1));
@@ -99,7 +153,7 @@ public class UpsertJobMojoTest extends DatabricksMavenPluginTestHarness {
             ("s3://configProperty/unit-test-group/unit-test-artifact/" +
                 "1.0.0-SNAPSHOT/unit-test-artifact-1.0.0-SNAPSHOT.jar"));
         ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
-        verify(jobService, Mockito.times(1)).upsertJob(jobCaptor.capture(), anyBoolean());
+        verify(jobService, Mockito.times(1)).createJob(jobCaptor.capture());
         assertEquals(jobSettingsDTOs.get(0), jobCaptor.getValue());
     }
 
@@ -135,58 +189,78 @@ public class UpsertJobMojoTest extends DatabricksMavenPluginTestHarness {
     }
 
     @Test
-    public void testGetJobId_single() throws Exception {
+    public void testLoadJobIndex_single() throws Exception {
         when(jobService.listAllJobs()).thenReturn(createJobsDTO(createJobDTO("test-job", 123L)));
-        when(jobService.getJobByName("test-job", true)).thenReturn(createJobDTO("test-job", 123L));
-        Long jobId = underTest.getJobId("test-job");
-        assertThat(jobId, is(123L));
+        JobDTO jobDTO = underTest.loadJobIndex("test-job"::equals).getJob("test-job", true);
+        assertThat(jobDTO.getJobId(), is(123L));
     }
 
-    @Test
-    public void testGetJobId_multiple() throws Exception {
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testLoadJobIndex_multiple() throws Exception {
         when(jobService.listAllJobs())
             .thenReturn(createJobsDTO(createJobDTO("test-job", 123L), createJobDTO("test-job", 456L)));
-        when(jobService.getJobByName("test-job", true)).thenThrow(new IllegalStateException());
-        try {
-            underTest.getJobId("test-job");
-        } catch (MojoExecutionException e) {
-            return;
-        }
-        fail();
+        underTest.loadJobIndex("test-job"::equals).getJob("test-job", true);
     }
 
     @Test
-    public void testGetJobId_multiple_no_exception() throws Exception {
-        underTest.failOnDuplicateJobName = false;
+    public void testLoadJobIndex_multiple_no_exception() throws Exception {
         when(jobService.listAllJobs())
             .thenReturn(createJobsDTO(createJobDTO("test-job", 123L), createJobDTO("test-job", 456L)));
-
-        when(jobService.getJobByName("test-job", false)).thenReturn(createJobDTO("test-job", 123L));
-
-        Long jobId = underTest.getJobId("test-job");
-        assertThat(jobId, is(123L));
+        JobDTO jobDTO = underTest.loadJobIndex("test-job"::equals).getJob("test-job", false);
+        assertThat(jobDTO.getJobId(), is(123L));
     }
 
     @Test
-    public void testGetJobId_none() throws Exception {
+    public void testLoadJobIndex_none() throws Exception {
         when(jobService.listAllJobs())
             .thenReturn(createJobsDTO(createJobDTO("test-job", 123L), createJobDTO("test-job", 456L)));
-        when(jobService.getJobByName("fake-job", true)).thenReturn(null);
+        assertThat(underTest.loadJobIndex("fake-job"::equals).getJob("fake-job", true), nullValue());
+    }
+
+    @Test
+    public void testUpsertJob_restJobListing_pagesThroughJobs() throws Exception {
+        JobDTO otherJob = createJobDTO("other-group/other-artifact", 1);
+        JobDTO liveJob = createJobDTO("unit-test-group/unit-test-artifact", 2);
+        liveJob.setSettings(underTest.getSettingsUtils().buildSettingsDTOsWithDefaults().get(0));
+        List<String> requests = new ArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/2.0/jobs/list", exchange -> {
+            requests.add(exchange.getRequestURI().getQuery() + " "
+                + exchange.getRequestHeaders().getFirst("Authorization"));
+            boolean firstPage = exchange.getRequestURI().getQuery().startsWith("offset=0");
+            byte[] body = String.format("{\"jobs\": [%s], \"has_more\": %s}",
+                ObjectMapperUtils.OBJECT_MAPPER.writeValueAsString(firstPage ? otherJob : liveJob), firstPage)
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            underTest.setJobPageSource(JobPageSource.rest("http://localhost:" + server.getAddress().getPort(),
+                "my-token", 1000, 1000));
+            underTest.jobListPageSize = 1;
+
+            underTest.execute();
+        } finally {
+            server.stop(0);
+        }
 
-        Long jobId = underTest.getJobId("fake-job");
-        assertThat(jobId, nullValue());
+        assertThat(requests, contains("offset=0&limit=1 Bearer my-token", "offset=1&limit=1 Bearer my-token"));
+        verify(jobService, Mockito.never()).listAllJobs();
+        verify(jobService, Mockito.never()).createJob(any(JobSettingsDTO.class));
+        verify(jobService, Mockito.never()).reset(anyLong(), any(JobSettingsDTO.class));
     }
 
     @Test
     public void testUpsertSingleJob() throws Exception {
         underTest = getNoOverridesMojo(GOAL);
         underTest.setSingleJob("unit-test-group/unit-test-artifact");
-        Mockito.when(jobService.getJobByName("unit-test-group/unit-test-artifact", true)).thenReturn(createJobDTO
-                ("unit-test-group/unit-test-artifact", 1));
         underTest.execute();
 
         ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
-        verify(jobService, Mockito.times(1)).upsertJob(jobCaptor.capture(), anyBoolean());
+        verify(jobService, Mockito.times(1)).createJob(jobCaptor.capture());
         assertEquals("unit-test-group/unit-test-artifact", jobCaptor.getValue().getName());
     }
 
@@ -199,6 +273,33 @@ public class UpsertJobMojoTest extends DatabricksMavenPluginTestHarness {
         verifyNoMoreInteractions(jobService);
     }
 
+    @Test
+    public void testUpsertJob_unchanged_skipsWrite() throws Exception {
+        underTest = getNoOverridesMojo(GOAL);
+        JobDTO liveJob = createJobDTO("unit-test-group/unit-test-artifact", 1);
+        liveJob.setSettings(underTest.getSettingsUtils().buildSettingsDTOsWithDefaults().get(0));
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO(liveJob));
+
+        underTest.execute();
+
+        verify(jobService, Mockito.never()).createJob(any(JobSettingsDTO.class));
+        verify(jobService, Mockito.never()).reset(anyLong(), any(JobSettingsDTO.class));
+    }
+
+    @Test
+    public void testUpsertJob_changed_resetsJob() throws Exception {
+        underTest = getNoOverridesMojo(GOAL);
+        JobDTO liveJob = createJobDTO("unit-test-group/unit-test-artifact", 1);
+        liveJob.getSettings().setMaxConcurrentRuns(5);
+        when(jobService.listAllJobs()).thenReturn(createJobsDTO(liveJob));
+
+        underTest.execute();
+
+        ArgumentCaptor<JobSettingsDTO> jobCaptor = ArgumentCaptor.forClass(JobSettingsDTO.class);
+        verify(jobService, Mockito.times(1)).reset(eq(1L), jobCaptor.capture());
+        verify(jobService, Mockito.never()).createJob(any(JobSettingsDTO.class));
+        assertEquals("unit-test-group/unit-test-artifact", jobCaptor.getValue().getName());
+    }
 
     private JobsDTO createJobsDTO(JobDTO... jobDTOs) {
         JobsDTO jobsDTO = new JobsDTO();
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ValidateSettingsMojo}.
+ */
+public class ValidateSettingsMojoTest extends BaseDatabricksMojoTest {
+
+    private ValidateSettingsMojo underTest = new ValidateSettingsMojo();
+    private File jobFile;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        super.init();
+
+        underTest.setProject(project);
+        underTest.databricksRepo = "bucket-name";
+        underTest.databricksRepoKey = "repo-key";
+        underTest.prefixToStrip = "com\\.edmunds\\.";
+        underTest.setDbClusterFile(new File("does-not-exist.json"));
+        jobFile = File.createTempFile("validate-job-settings", ".json");
+        jobFile.deleteOnExit();
+        underTest.setDbJobFile(jobFile);
+    }
+
+    @Test
+    public void testExecute_reportsFailingEnvironment() throws Exception {
+        FileUtils.writeStringToFile(jobFile, "[{\"name\": \"test/mycoolartifact/job\", "
+            + "<#if environment == \"PROD\">\"timeout_seconds\": ${missingProdValue}, </#if>"
+            + "\"email_notifications\": {\"on_failure\": [\"team@example.com\"]}}]", StandardCharsets.UTF_8);
+        underTest.setValidateEnvironments(Arrays.asList("QA", "PROD"));
+
+        try {
+            underTest.execute();
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), is("Settings validation failed in [1] of [4] environment/settings combinations"));
+            assertThat(e.getCause().getMessage(), containsString("[PROD] job settings"));
+            assertThat(e.getCause().getMessage(), containsString("missingProdValue"));
+        }
+    }
+
+    @Test
+    public void testExecute_allEnvironmentsValid() throws Exception {
+        FileUtils.writeStringToFile(jobFile, "[{\"name\": \"test/mycoolartifact/job\", "
+            + "\"email_notifications\": {\"on_failure\": [\"team@example.com\"]}}]", StandardCharsets.UTF_8);
+        underTest.setValidateEnvironments(Arrays.asList("QA", "PROD"));
+
+        underTest.execute();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link DbcArchive}.
+ */
+public class DbcArchiveTest {
+
+    private static final String PREFIX = "/test/mycoolartifact";
+
+    private final File notebooks = new File(getClass().getResource("/notebooks").getPath());
+
+    @Test
+    public void testPack() throws Exception {
+        DbcArchive archive = DbcArchive.pack(NotebookTree.scan(notebooks), PREFIX, Long.MAX_VALUE);
+
+        Map<String, JsonNode> documents = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.getBytes()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                documents.put(entry.getName(), OBJECT_MAPPER.readTree(IOUtils.toByteArray(zip)));
+            }
+        }
+        assertThat(documents.keySet(), containsInAnyOrder("mycoolartifact/test1/myFile.sql",
+            "mycoolartifact/test2/myFile.scala", "mycoolartifact/test2/test3/myFile.scala"));
+        JsonNode sql = documents.get("mycoolartifact/test1/myFile.sql");
+        assertThat(sql.get("language").asText(), is("sql"));
+        assertThat(sql.get("commands").get(0).get("command").asText(), is("select * from mytable"));
+        assertThat(archive.getNotebookHashes().keySet(),
+            containsInAnyOrder("test1/myFile", "test2/myFile", "test2/test3/myFile"));
+    }
+
+    @Test
+    public void testPack_overLimit() throws Exception {
+        assertThat(DbcArchive.pack(NotebookTree.scan(notebooks), PREFIX, 10), nullValue());
+    }
+
+    @Test
+    public void testSplitCommands() {
+        assertThat(DbcArchive.splitCommands("# Databricks notebook source\nprint(1)\n\n# COMMAND ----------\n\n"
+            + "print(2)\n"), contains("print(1)", "print(2)"));
+    }
+
+    @Test
+    public void testSplitCommands_magicCells() {
+        assertThat(DbcArchive.splitCommands("# Databricks notebook source\n# MAGIC %md\n# MAGIC # Title\n# MAGIC\n"
+            + "# MAGIC text\n\n# COMMAND ----------\n\n# MAGIC %run ./other\n\n# COMMAND ----------\n\nprint(1)\n"),
+            contains("%md\n# Title\n\ntext", "%run ./other", "print(1)"));
+        assertThat(DbcArchive.splitCommands("-- Databricks notebook source\n-- MAGIC %md\n-- MAGIC notes\n\n"
+            + "-- COMMAND ----------\n\nSELECT 1\n"), contains("%md\nnotes", "SELECT 1"));
+        assertThat(DbcArchive.splitCommands("// Databricks notebook source\n// MAGIC %run ./other\n\n"
+            + "// COMMAND ----------\n\nprintln(1)\n"), contains("%run ./other", "println(1)"));
+    }
+}
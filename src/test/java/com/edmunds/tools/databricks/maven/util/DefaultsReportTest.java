@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.Strategy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.testng.annotations.Test;
+
+public class DefaultsReportTest {
+
+    @Test
+    public void testWrite_replacesOwnSection() throws Exception {
+        File reportFile = File.createTempFile("defaults-report", ".json");
+        reportFile.deleteOnExit();
+        SettingsMerger merger = new SettingsMerger().rule("timeout_seconds", Strategy.REPLACE_IF_MISSING);
+
+        DefaultsReport clusters = new DefaultsReport(new SystemStreamLog(), reportFile, "clusters");
+        clusters.write();
+        DefaultsReport jobs = new DefaultsReport(new SystemStreamLog(), reportFile, "jobs");
+        ObjectNode user = OBJECT_MAPPER.createObjectNode();
+        ObjectNode defaults = OBJECT_MAPPER.createObjectNode().put("timeout_seconds", 1800);
+        jobs.record("team/job", merger.merge(user, defaults));
+        jobs.write();
+
+        JsonNode report = OBJECT_MAPPER.readTree(reportFile);
+        assertThat(report.get("jobs").get("team/job").get("timeout_seconds").asInt(), is(1800));
+        assertThat(report.get("clusters").size(), is(0));
+    }
+}
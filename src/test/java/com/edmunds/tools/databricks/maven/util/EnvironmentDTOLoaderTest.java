@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link EnvironmentDTOLoader}.
+ */
+public class EnvironmentDTOLoaderTest {
+
+    private File environmentDTOFile;
+
+    @BeforeMethod
+    public void init() throws Exception {
+        EnvironmentDTOLoader.clear();
+        environmentDTOFile = File.createTempFile("environment", ".json");
+        environmentDTOFile.deleteOnExit();
+        FileUtils.writeStringToFile(environmentDTOFile, "{\"groupId\":\"group\",\"environment\":\"QA\","
+            + "\"projectProperties\":{\"team\":\"a\"}}", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLoad_parsesOnceAndAppliesEnvironment() throws Exception {
+        EnvironmentDTO qa = EnvironmentDTOLoader.load(environmentDTOFile, null);
+        EnvironmentDTO prod = EnvironmentDTOLoader.load(environmentDTOFile, "PROD");
+
+        assertThat(qa.getEnvironment(), is("QA"));
+        assertThat(prod.getEnvironment(), is("PROD"));
+        assertThat(prod.getGroupId(), is("group"));
+        assertThat(prod.getProjectProperties(), sameInstance(qa.getProjectProperties()));
+    }
+
+    @Test
+    public void testLoad_changedFileIsParsedAgain() throws Exception {
+        EnvironmentDTO before = EnvironmentDTOLoader.load(environmentDTOFile, null);
+        FileUtils.writeStringToFile(environmentDTOFile, "{\"groupId\":\"group\",\"environment\":\"QA\","
+            + "\"projectProperties\":{\"team\":\"b\"}}", StandardCharsets.UTF_8);
+        environmentDTOFile.setLastModified(environmentDTOFile.lastModified() + 1000);
+
+        EnvironmentDTO after = EnvironmentDTOLoader.load(environmentDTOFile, null);
+
+        assertThat(after.getProjectProperties(), not(sameInstance(before.getProjectProperties())));
+        assertThat(after.getProjectProperties().getProperty("team"), is("b"));
+    }
+}
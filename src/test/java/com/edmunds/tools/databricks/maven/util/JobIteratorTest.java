@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.edmunds.rest.databricks.DTO.jobs.JobDTO;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class JobIteratorTest {
+
+    @Test
+    public void testNext_readsAllPagesAndFiltersByName() throws Exception {
+        List<Integer> requestedOffsets = new ArrayList<>();
+        JobPageSource pageSource = (offset, limit) -> {
+            requestedOffsets.add(offset);
+            String page;
+            if (offset == 0) {
+                page = "{\"jobs\": [" + job(1, "a") + "," + job(2, "b") + "], \"has_more\": true}";
+            } else {
+                page = "{\"has_more\": false, \"jobs\": [" + job(3, "a") + "]}";
+            }
+            return new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8));
+        };
+
+        List<Long> jobIds = new ArrayList<>();
+        try (JobIterator jobIterator = new JobIterator(pageSource, "a"::equals)) {
+            for (JobDTO job = jobIterator.next(); job != null; job = jobIterator.next()) {
+                jobIds.add(job.getJobId());
+            }
+        }
+
+        assertThat(jobIds, contains(1L, 3L));
+        assertThat(requestedOffsets, contains(0, 2));
+    }
+
+    @Test
+    public void testNext_emptyResponse() throws Exception {
+        JobIterator jobIterator = new JobIterator(
+            (offset, limit) -> new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)), name -> true);
+
+        assertThat(jobIterator.next(), is(nullValue()));
+    }
+
+    private String job(long jobId, String name) {
+        return String.format("{\"job_id\": %s, \"created_time\": 1, \"settings\": {\"name\": \"%s\"}}", jobId, name);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link NameNormalizer}.
+ */
+public class NameNormalizerTest {
+
+    @Test
+    public void testStripPrefix() {
+        assertThat(NameNormalizer.stripPrefix("com\\.edmunds\\.", "com.edmunds.myteam"), is("myteam"));
+        assertThat(NameNormalizer.stripPrefix("com\\.edmunds\\.", "myteam"), is("myteam"));
+        assertThat(NameNormalizer.stripPrefix("^org\\.", "org.myteam.org.x"), is("myteam.org.x"));
+    }
+
+    @Test
+    public void testToWorkspacePath() {
+        assertThat(NameNormalizer.toWorkspacePath("\\com.edmunds\\notebooks"), is("/com/edmunds/notebooks"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.edmunds.rest.databricks.DTO.workspace.LanguageDTO;
+import com.edmunds.tools.databricks.maven.util.NotebookTree.Notebook;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link NotebookTree}.
+ */
+public class NotebookTreeTest {
+
+    @Test
+    public void testScan() throws Exception {
+        NotebookTree tree = NotebookTree.scan(new File(getClass().getResource("/notebooks").getPath()));
+
+        assertThat(tree.getNotebooks().stream().map(Notebook::getRemotePath).collect(Collectors.toList()),
+            contains("/test/mycoolartifact/test1/myFile", "/test/mycoolartifact/test2/myFile",
+                "/test/mycoolartifact/test2/test3/myFile"));
+        Notebook sql = tree.getNotebooks().get(0);
+        assertThat(sql.getRemoteDir(), is("/test/mycoolartifact/test1"));
+        assertThat(sql.getRelativePath(), is(Paths.get("test", "mycoolartifact", "test1", "myFile.sql")));
+        assertThat(sql.getLanguage(), is(LanguageDTO.SQL));
+        assertThat(sql.getSize(), is(Files.size(sql.getFile())));
+        assertThat(tree.getNotebooks("/test/mycoolartifact/test2").size(), is(2));
+    }
+
+    @Test
+    public void testScan_skipsOtherFiles() throws Exception {
+        File root = Files.createTempDirectory("notebooks").toFile();
+        FileUtils.writeStringToFile(new File(root, "a/notebook.py"), "print(1)", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(root, "a/happy"), "not a notebook", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(root, "a/README.md"), "not a notebook", StandardCharsets.UTF_8);
+
+        NotebookTree tree = NotebookTree.scan(root);
+
+        assertThat(tree.getNotebooks().stream().map(Notebook::getRemotePath).collect(Collectors.toList()),
+            contains("/a/notebook"));
+        assertThat(tree.getNotebooks().get(0).getLanguage(), is(LanguageDTO.PYTHON));
+        assertThat(tree.getFiles(), contains(Paths.get("a", "README.md"), Paths.get("a", "happy"),
+            Paths.get("a", "notebook.py")));
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testScan_missingDirectory() throws Exception {
+        NotebookTree tree = NotebookTree.scan(new File("does-not-exist"));
+
+        assertThat(tree.getNotebooks(), empty());
+        assertThat(tree.getFiles(), empty());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link PropertyReferences}.
+ */
+public class PropertyReferencesTest {
+
+    @Test
+    public void testScan_literalReferences() {
+        PropertyReferences references = PropertyReferences.scan(Arrays.asList(
+            "{\"jar\": \"s3://${projectProperties['databricks.repo']}/${projectProperties[\"databricks.repo.key\"]}\"}",
+            "<#if systemProperties.user == \"ci\">\"a\": ${projectProperties.team}</#if>"));
+
+        assertThat(references.getProjectProperties(),
+            containsInAnyOrder("databricks.repo", "databricks.repo.key", "team"));
+        assertThat(references.getSystemProperties(), containsInAnyOrder("user"));
+    }
+
+    @Test
+    public void testScan_computedReferenceKeepsAll() {
+        PropertyReferences references = PropertyReferences.scan(Collections.singletonList(
+            "${projectProperties['a']} <#list projectProperties?keys as key>${key}</#list>"));
+
+        assertThat(references.getProjectProperties(), nullValue());
+        assertThat(references.getSystemProperties(), empty());
+    }
+
+    @Test
+    public void testScan_includeKeepsAll() {
+        PropertyReferences references = PropertyReferences.scan(Collections.singletonList(
+            "<#include \"common.ftl\">"));
+
+        assertThat(references.getProjectProperties(), nullValue());
+        assertThat(references.getSystemProperties(), nullValue());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.testng.Assert.fail;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link RestJobPageSource}.
+ */
+public class RestJobPageSourceTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeMethod
+    public void startServer() throws Exception {
+        requests.set(0);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterMethod
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testOpenPage_retriesUnavailable() throws Exception {
+        respond(503, 200);
+
+        try (InputStream page = JobPageSource.rest(baseUrl, "my-token", 1000, 1000).openPage(0, 10)) {
+            assertThat(IOUtils.toString(page, StandardCharsets.UTF_8), is("{\"jobs\": []}"));
+        }
+        assertThat(requests.get(), is(2));
+    }
+
+    @Test
+    public void testOpenPage_failsOnClientError() throws Exception {
+        respond(400);
+
+        try {
+            JobPageSource.rest(baseUrl, "my-token", 1000, 1000).openPage(0, 10);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("status: [400]"));
+        }
+        assertThat(requests.get(), is(1));
+    }
+
+    private void respond(int... statuses) {
+        server.createContext("/api/2.0/jobs/list", exchange -> {
+            int status = statuses[Math.min(requests.getAndIncrement(), statuses.length - 1)];
+            if (!"Bearer my-token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                status = 401;
+            }
+            byte[] body = (status == 200 ? "{\"jobs\": []}" : "{\"error_code\": \"" + status + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static com.edmunds.tools.databricks.maven.util.ObjectMapperUtils.OBJECT_MAPPER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.AppliedDefault;
+import com.edmunds.tools.databricks.maven.util.SettingsMerger.Strategy;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class SettingsMergerTest {
+
+    private final SettingsMerger underTest = new SettingsMerger()
+        .rule("name", Strategy.REPLACE_IF_EMPTY)
+        .mergeRule("cluster", SettingsMerger.userEmpty("cluster_id"))
+        .rule("cluster.version", Strategy.REPLACE_IF_EMPTY)
+        .rule("cluster.workers", Strategy.REPLACE_IF_EMPTY)
+        .rule("env", Strategy.REPLACE_IF_EMPTY)
+        .rule("retries", Strategy.REPLACE_IF_MISSING)
+        .rule("interval", Strategy.REPLACE_IF_MISSING, (user, defaults) -> user.path("retries").asInt() != 0);
+
+    @Test
+    public void testMerge() throws Exception {
+        ObjectNode user = tree("{'name': '', 'cluster': {'version': '6.2', 'workers': 0, 'tags': null}, "
+            + "'env': {'X': ''}}");
+        ObjectNode defaults = tree("{'name': 'default', 'cluster': {'version': '5.5', 'workers': 2, "
+            + "'disk': {'size': 100}, 'tags': {'team': 'x'}}, 'env': {'Y': 'y'}, 'retries': 1, 'interval': 1000, "
+            + "'task': {}}");
+
+        List<AppliedDefault> applied = underTest.merge(user, defaults);
+
+        // fields of cluster without a rule are left alone, and env is kept as it has an entry
+        assertThat(user, is(tree("{'name': 'default', 'cluster': {'version': '6.2', 'workers': 2, 'tags': null}, "
+            + "'env': {'X': ''}, 'retries': 1, 'interval': 1000}")));
+        assertThat(applied.stream().map(AppliedDefault::getPath).collect(Collectors.toList()),
+            contains("name", "cluster.workers", "retries", "interval"));
+    }
+
+    @Test
+    public void testMerge_conditionsNotMet() throws Exception {
+        ObjectNode user = tree("{'cluster_id': 'abc', 'retries': 0}");
+        ObjectNode defaults = tree("{'cluster': {'version': '5.5'}, 'retries': 1, 'interval': 1000}");
+
+        List<AppliedDefault> applied = underTest.merge(user, defaults);
+
+        assertThat(user, is(tree("{'cluster_id': 'abc', 'retries': 0}")));
+        assertThat(applied.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testMerge_defaultsNotShared() throws Exception {
+        ObjectNode user = tree("{}");
+        ObjectNode defaults = tree("{'cluster': {'version': '5.5'}}");
+
+        underTest.merge(user, defaults);
+        ((ObjectNode) user.get("cluster")).put("version", "6.2");
+
+        assertThat(defaults.get("cluster").get("version").asText(), is("5.5"));
+    }
+
+    @Test
+    public void testIsEmpty() throws Exception {
+        assertThat(SettingsMerger.isEmpty(tree("{}")), is(true));
+        assertThat(SettingsMerger.isEmpty(OBJECT_MAPPER.readTree("[]")), is(true));
+        assertThat(SettingsMerger.isEmpty(OBJECT_MAPPER.readTree("\"\"")), is(true));
+        assertThat(SettingsMerger.isEmpty(OBJECT_MAPPER.readTree("0")), is(true));
+        assertThat(SettingsMerger.isEmpty(tree("{'X': ''}")), is(false));
+        assertThat(SettingsMerger.isEmpty(tree("{'a': false}")), is(false));
+    }
+
+    private static ObjectNode tree(String json) throws Exception {
+        return (ObjectNode) OBJECT_MAPPER.readTree(json.replace('\'', '"'));
+    }
+}
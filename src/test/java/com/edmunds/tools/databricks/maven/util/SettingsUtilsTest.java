@@ -1,10 +1,22 @@
 package com.edmunds.tools.databricks.maven.util;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
 import com.edmunds.rest.databricks.DTO.jobs.JobSettingsDTO;
 import com.edmunds.tools.databricks.maven.DatabricksMavenPluginTestHarness;
 import com.edmunds.tools.databricks.maven.UpsertJobMojoTest;
 import com.edmunds.tools.databricks.maven.model.EnvironmentDTO;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.testng.annotations.Test;
 
@@ -29,7 +41,196 @@ public class SettingsUtilsTest extends DatabricksMavenPluginTestHarness {
 
                 }
             }
-        ).getUserSettingsJson();
+        ).buildSettingsDTOsWithDefaults();
     }
 
-}
\ No newline at end of file
+    @Test(expectedExceptions = MojoExecutionException.class,
+        expectedExceptionsMessageRegExp = "(?s)Failed to unmarshal Settings DTO.*"
+            + "Unexpected content after the settings array.*")
+    public void testBuildSettingsDTOsWithDefaults_contentAfterArray() throws Exception {
+        File settingsFile = File.createTempFile("trailing-job-settings", ".json");
+        settingsFile.deleteOnExit();
+        FileUtils.writeStringToFile(settingsFile, "[{\"name\": \"${groupWithoutCompany}/job\"}]\n"
+            + "[{\"name\": \"${groupWithoutCompany}/dropped-job\"}]", StandardCharsets.UTF_8);
+
+        new SettingsUtils<>(JobSettingsDTO[].class, "/default-job.json", settingsFile,
+            () -> EnvironmentDTO.loadEnvironmentDTOFromFile(
+                new File("src/test/resources/databricks-plugin/environment.json")),
+            new SettingsInitializer<JobSettingsDTO>() {
+                @Override
+                public void fillInDefaults(JobSettingsDTO settingsDTO, JobSettingsDTO defaultSettingsDTO,
+                    EnvironmentDTO environmentDTO) {
+
+                }
+
+                @Override
+                public void validate(JobSettingsDTO settingsDTO, EnvironmentDTO environmentDTO) {
+
+                }
+            }
+        ).buildSettingsDTOsWithDefaults();
+    }
+
+    @Test
+    public void testForEachSettingsDTOWithDefaults_stopsAtFirstInvalidElement() throws Exception {
+        File settingsFile = File.createTempFile("streamed-job-settings", ".json");
+        settingsFile.deleteOnExit();
+        StringBuilder settings = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            settings.append(i == 0 ? "" : ",").append("{\"name\": \"${groupWithoutCompany}/job-").append(i).append("\"}");
+        }
+        FileUtils.writeStringToFile(settingsFile, settings.append("]").toString(), StandardCharsets.UTF_8);
+        List<String> handled = new ArrayList<>();
+
+        try {
+            new SettingsUtils<>(JobSettingsDTO[].class, "/default-job.json", settingsFile,
+                () -> EnvironmentDTO.loadEnvironmentDTOFromFile(
+                    new File("src/test/resources/databricks-plugin/environment.json")),
+                new SettingsInitializer<JobSettingsDTO>() {
+                    @Override
+                    public void fillInDefaults(JobSettingsDTO settingsDTO, JobSettingsDTO defaultSettingsDTO,
+                        EnvironmentDTO environmentDTO) {
+
+                    }
+
+                    @Override
+                    public void validate(JobSettingsDTO settingsDTO, EnvironmentDTO environmentDTO)
+                        throws MojoExecutionException {
+                        if (settingsDTO.getName().equals("bde/job-2")) {
+                            throw new MojoExecutionException("invalid: " + settingsDTO.getName());
+                        }
+                    }
+                }
+            ).forEachSettingsDTOWithDefaults(settingsDTO -> handled.add(settingsDTO.getName()));
+            fail();
+        } catch (MojoExecutionException e) {
+            assertEquals(e.getMessage(), "invalid: bde/job-2");
+        }
+        assertEquals(handled, Arrays.asList("bde/job-0", "bde/job-1"));
+    }
+
+    @Test
+    public void testBuildSettingsDTOsWithDefaults_cached() throws Exception {
+        File settingsFile = File.createTempFile("cached-job-settings", ".json");
+        settingsFile.deleteOnExit();
+        FileUtils.writeStringToFile(settingsFile, "[{\"name\": \"${groupWithoutCompany}/job\"}]",
+            StandardCharsets.UTF_8);
+        File cacheDirectory = Files.createTempDirectory("settings-cache").toFile();
+        cacheDirectory.deleteOnExit();
+        AtomicInteger initialized = new AtomicInteger();
+        SettingsInitializer<JobSettingsDTO> settingsInitializer = new SettingsInitializer<JobSettingsDTO>() {
+            @Override
+            public void fillInDefaults(JobSettingsDTO settingsDTO, JobSettingsDTO defaultSettingsDTO,
+                EnvironmentDTO environmentDTO) {
+                initialized.incrementAndGet();
+                settingsDTO.setMaxRetries(3);
+            }
+
+            @Override
+            public void validate(JobSettingsDTO settingsDTO, EnvironmentDTO environmentDTO) {
+
+            }
+        };
+        EnvironmentDTOSupplier environmentDTOSupplier = () -> EnvironmentDTO.loadEnvironmentDTOFromFile(
+            new File("src/test/resources/databricks-plugin/environment.json"));
+
+        for (int i = 0; i < 2; i++) {
+            List<JobSettingsDTO> settingsDTOs = new SettingsUtils<>(JobSettingsDTO[].class, "/default-job.json",
+                settingsFile, environmentDTOSupplier, settingsInitializer, cacheDirectory)
+                .buildSettingsDTOsWithDefaults();
+            assertEquals(settingsDTOs.get(0).getName(), "bde/job");
+            assertEquals(settingsDTOs.get(0).getMaxRetries(), Integer.valueOf(3));
+        }
+        assertEquals(initialized.get(), 1);
+
+        // a changed template is a different cache entry
+        FileUtils.writeStringToFile(settingsFile, "[{\"name\": \"${groupWithoutCompany}/other-job\"}]",
+            StandardCharsets.UTF_8);
+        settingsFile.setLastModified(settingsFile.lastModified() + 1000);
+        List<JobSettingsDTO> settingsDTOs = new SettingsUtils<>(JobSettingsDTO[].class, "/default-job.json",
+            settingsFile, environmentDTOSupplier, settingsInitializer, cacheDirectory)
+            .buildSettingsDTOsWithDefaults();
+        assertEquals(settingsDTOs.get(0).getName(), "bde/other-job");
+        assertEquals(initialized.get(), 2);
+        FileUtils.deleteQuietly(cacheDirectory);
+    }
+
+    @Test
+    public void testBuildSettingsDTOsWithDefaults_directory() throws Exception {
+        File settingsDirectory = Files.createTempDirectory("job-settings").toFile();
+        FileUtils.writeStringToFile(new File(settingsDirectory, "b.json"),
+            "[{\"name\": \"${groupWithoutCompany}/job-b\"}]", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(settingsDirectory, "a.json"),
+            "[{\"name\": \"${groupWithoutCompany}/job-a1\"}, {\"name\": \"${groupWithoutCompany}/job-a2\"}]",
+            StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(settingsDirectory, "notes.txt"), "not settings", StandardCharsets.UTF_8);
+
+        try {
+            List<String> names = new ArrayList<>();
+            newJobSettingsUtils(settingsDirectory).forEachSettingsDTOWithDefaults(
+                settingsDTO -> names.add(settingsDTO.getName()));
+            assertEquals(names, Arrays.asList("bde/job-a1", "bde/job-a2", "bde/job-b"));
+
+            names.clear();
+            newJobSettingsUtils(new File(settingsDirectory, "b*.json")).forEachSettingsDTOWithDefaults(
+                settingsDTO -> names.add(settingsDTO.getName()));
+            assertEquals(names, Collections.singletonList("bde/job-b"));
+
+            FileUtils.writeStringToFile(new File(settingsDirectory, "c.json"),
+                "[{\"name\": \"${groupWithoutCompany}/job-b\"}]", StandardCharsets.UTF_8);
+            try {
+                newJobSettingsUtils(settingsDirectory).buildSettingsDTOsWithDefaults();
+                fail();
+            } catch (MojoExecutionException e) {
+                assertTrue(e.getMessage().startsWith("Duplicate settings name: [bde/job-b]"), e.getMessage());
+            }
+        } finally {
+            FileUtils.deleteQuietly(settingsDirectory);
+        }
+    }
+
+    @Test
+    public void testBuildSettingsDTOsWithDefaults_duplicateNameInSingleFile() throws Exception {
+        File settingsDirectory = Files.createTempDirectory("job-settings").toFile();
+        File settingsFile = new File(settingsDirectory, "a.json");
+        FileUtils.writeStringToFile(settingsFile, "[{\"name\": \"${groupWithoutCompany}/job-a\"}, "
+            + "{\"name\": \"${groupWithoutCompany}/job-a\"}]", StandardCharsets.UTF_8);
+
+        try {
+            // A single file, and a glob with a single match
+            for (File settingsPath : Arrays.asList(settingsFile, new File(settingsDirectory, "a*.json"))) {
+                try {
+                    newJobSettingsUtils(settingsPath).buildSettingsDTOsWithDefaults();
+                    fail();
+                } catch (MojoExecutionException e) {
+                    assertTrue(e.getMessage().startsWith("Duplicate settings name: [bde/job-a]"), e.getMessage());
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(settingsDirectory);
+        }
+    }
+
+    private SettingsUtils<JobSettingsDTO> newJobSettingsUtils(File settingsFile) throws MojoExecutionException {
+        return new SettingsUtils<>(JobSettingsDTO[].class, "/default-job.json", settingsFile,
+            () -> EnvironmentDTO.loadEnvironmentDTOFromFile(
+                new File("src/test/resources/databricks-plugin/environment.json")),
+            new SettingsInitializer<JobSettingsDTO>() {
+                @Override
+                public void fillInDefaults(JobSettingsDTO settingsDTO, JobSettingsDTO defaultSettingsDTO,
+                    EnvironmentDTO environmentDTO) {
+
+                }
+
+                @Override
+                public void validate(JobSettingsDTO settingsDTO, EnvironmentDTO environmentDTO) {
+
+                }
+
+                @Override
+                public String getSettingsName(JobSettingsDTO settingsDTO) {
+                    return settingsDTO.getName();
+                }
+            });
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2019 Edmunds.com, Inc.
+ *
+ *      Licensed under the Apache License, Version 2.0 (the "License");
+ *      you may not use this file except in compliance with the License.
+ *      You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *      Unless required by applicable law or agreed to in writing, software
+ *      distributed under the License is distributed on an "AS IS" BASIS,
+ *      WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *      See the License for the specific language governing permissions and
+ *      limitations under the License.
+ */
+
+package com.edmunds.tools.databricks.maven.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import freemarker.template.Template;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class TemplateEngineTest {
+
+    @Test
+    public void testFileTemplate_cachedUntilModified() throws Exception {
+        File templateFile = File.createTempFile("template", ".json");
+        templateFile.deleteOnExit();
+        FileUtils.writeStringToFile(templateFile, "${name}", StandardCharsets.UTF_8);
+        long lastModified = templateFile.lastModified();
+
+        Template first = TemplateEngine.getTemplate(templateFile);
+        assertThat(TemplateEngine.getTemplate(templateFile), sameInstance(first));
+
+        // An edit within the same second as the previous one
+        FileUtils.writeStringToFile(templateFile, "${name}!", StandardCharsets.UTF_8);
+        templateFile.setLastModified(lastModified);
+
+        assertThat(TemplateEngine.getTemplate(templateFile), not(sameInstance(first)));
+        StringWriter out = new StringWriter();
+        TemplateEngine.render(templateFile, Collections.singletonMap("name", "job"), out);
+        assertThat(out.toString(), is("job!"));
+    }
+
+    @Test
+    public void testFileTemplate_includedFileModified() throws Exception {
+        File dir = Files.createTempDirectory("templates").toFile();
+        dir.deleteOnExit();
+        File included = new File(dir, "included.ftl");
+        included.deleteOnExit();
+        File templateFile = new File(dir, "template.json");
+        templateFile.deleteOnExit();
+        FileUtils.writeStringToFile(included, "${name}", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(templateFile, "<#include \"included.ftl\">", StandardCharsets.UTF_8);
+        StringWriter out = new StringWriter();
+        TemplateEngine.render(templateFile, Collections.singletonMap("name", "job"), out);
+        assertThat(out.toString(), is("job"));
+
+        FileUtils.writeStringToFile(included, "${name}!", StandardCharsets.UTF_8);
+
+        out = new StringWriter();
+        TemplateEngine.render(templateFile, Collections.singletonMap("name", "job"), out);
+        assertThat(out.toString(), is("job!"));
+    }
+
+    @Test
+    public void testStringTemplate_cacheIsBounded() throws Exception {
+        Template first = TemplateEngine.getTemplate("test", "${bounded}");
+        for (int i = 0; i < TemplateEngine.MAX_CACHED_TEMPLATES; i++) {
+            TemplateEngine.getTemplate("test", "${bounded" + i + "}");
+        }
+
+        assertThat(TemplateEngine.getTemplate("test", "${bounded}"), not(sameInstance(first)));
+    }
+
+    @Test
+    public void testStringTemplate_cachedBySource() throws Exception {
+        Template first = TemplateEngine.getTemplate("test", "${name}");
+
+        assertThat(TemplateEngine.getTemplate("test", "${name}"), sameInstance(first));
+    }
+}